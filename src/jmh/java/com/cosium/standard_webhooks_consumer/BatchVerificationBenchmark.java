@@ -0,0 +1,103 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the verification of a batch of Ed25519 signed messages, against a plain loop over the
+ * JDK provider.
+ *
+ * @author Réda Housni Alaoui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchVerificationBenchmark {
+
+  @Param({"16", "256"})
+  private int batchSize;
+
+  @Param({"100", "10000"})
+  private int payloadSize;
+
+  private WebhookSignatureVerifier verifier;
+  private List<WebhookRequest> requests;
+  private PublicKey publicKey;
+  private byte[] signedContentPrefix;
+  private List<byte[]> payloads;
+  private List<byte[]> signatures;
+
+  @Setup
+  public void setup() throws GeneralSecurityException {
+    BenchmarkWebhooks webhooks = new BenchmarkWebhooks("v1a");
+    BenchmarkWebhooks.SigningKey key = webhooks.generateKey();
+    verifier = webhooks.createVerifier(List.of(key));
+    publicKey = key.keyPair().getPublic();
+    signedContentPrefix =
+        (BenchmarkWebhooks.MESSAGE_ID + "." + BenchmarkWebhooks.TIMESTAMP + ".")
+            .getBytes(StandardCharsets.UTF_8);
+
+    requests = new ArrayList<>();
+    payloads = new ArrayList<>();
+    signatures = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      byte[] payload = webhooks.generatePayload(payloadSize);
+      HttpHeaders headers = webhooks.createHeaders(List.of(key), payload);
+      requests.add(new WebhookRequest(WebhookHeaders.of(headers), payload));
+      payloads.add(payload);
+      signatures.add(
+          Base64.getDecoder()
+              .decode(
+                  key.sign(BenchmarkWebhooks.MESSAGE_ID, BenchmarkWebhooks.TIMESTAMP, payload)));
+    }
+
+    if (!verifier.verifyAll(requests).stream().allMatch(VerificationOutcome::isVerified)) {
+      throw new IllegalStateException("The batch should be valid");
+    }
+  }
+
+  @Benchmark
+  public void jdkProvider(Blackhole blackhole) throws GeneralSecurityException {
+    Signature engine = Signature.getInstance("Ed25519");
+    engine.initVerify(publicKey);
+    for (int i = 0; i < batchSize; i++) {
+      engine.update(signedContentPrefix);
+      engine.update(payloads.get(i));
+      blackhole.consume(engine.verify(signatures.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void verifySequentially() throws WebhookSignatureVerificationException {
+    for (WebhookRequest request : requests) {
+      verifier.verify(request.headers(), request.payload());
+    }
+  }
+
+  @Benchmark
+  public List<VerificationOutcome> verifyAll() {
+    return verifier.verifyAll(requests);
+  }
+}
@@ -0,0 +1,135 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Generates keys, payloads and signed headers for the benchmarks.
+ *
+ * @author Réda Housni Alaoui
+ */
+class BenchmarkWebhooks {
+
+  static final String MESSAGE_ID = "7a2486b3-31cf-4bd3-a460-df8845d16cd5";
+  static final long TIMESTAMP = 1737987215;
+  static final Clock CLOCK = Clock.fixed(Instant.ofEpochSecond(TIMESTAMP), ZoneId.systemDefault());
+
+  private final Random random = new Random(42);
+  private final String schemeId;
+
+  /**
+   * @param schemeId "v1" for HMAC-SHA256 keys, "v1a" for Ed25519 keys
+   */
+  BenchmarkWebhooks(String schemeId) {
+    if (!"v1".equals(schemeId) && !"v1a".equals(schemeId)) {
+      throw new IllegalArgumentException("Unknown scheme id <%s>".formatted(schemeId));
+    }
+    this.schemeId = schemeId;
+  }
+
+  public SigningKey generateKey() throws GeneralSecurityException {
+    if ("v1".equals(schemeId)) {
+      byte[] secret = new byte[32];
+      random.nextBytes(secret);
+      return new SigningKey("whsec_" + Base64.getEncoder().encodeToString(secret), secret, null);
+    }
+    KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    return new SigningKey(
+        "whpk_" + Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+        null,
+        keyPair);
+  }
+
+  public List<SigningKey> generateKeys(int count) throws GeneralSecurityException {
+    List<SigningKey> keys = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      keys.add(generateKey());
+    }
+    return keys;
+  }
+
+  public byte[] generatePayload(int size) {
+    byte[] payload = new byte[size];
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) ('a' + random.nextInt(26));
+    }
+    return payload;
+  }
+
+  /**
+   * @param verificationKeys The keys configured on the verifier. The last one is the one that
+   *     matches in the benchmarks, which is the worst case.
+   */
+  public WebhookSignatureVerifier createVerifier(List<SigningKey> verificationKeys) {
+    return createVerifier(verificationKeys, CryptoBackend.jca());
+  }
+
+  /**
+   * @param verificationKeys See {@link #createVerifier(List)}
+   */
+  public WebhookSignatureVerifier createVerifier(
+      List<SigningKey> verificationKeys, CryptoBackend cryptoBackend) {
+    WebhookSignatureVerifier.Builder builder =
+        WebhookSignatureVerifier.builder(verificationKeys.get(0).serializedVerificationKey())
+            .clock(CLOCK)
+            .cryptoBackend(cryptoBackend);
+    verificationKeys.stream()
+        .skip(1)
+        .map(SigningKey::serializedVerificationKey)
+        .forEach(builder::addSerializedVerificationKey);
+    return builder.build();
+  }
+
+  /**
+   * @param signingKeys The keys signing the payload. The signatures appear in the same order in the
+   *     header.
+   */
+  public HttpHeaders createHeaders(List<SigningKey> signingKeys, byte[] payload)
+      throws GeneralSecurityException {
+    List<String> signatures = new ArrayList<>();
+    for (SigningKey signingKey : signingKeys) {
+      signatures.add(schemeId + "," + signingKey.sign(MESSAGE_ID, TIMESTAMP, payload));
+    }
+    return HttpHeaders.of(
+        Map.of(
+            "webhook-id",
+            List.of(MESSAGE_ID),
+            "webhook-timestamp",
+            List.of(String.valueOf(TIMESTAMP)),
+            "webhook-signature",
+            List.of(String.join(" ", signatures))),
+        (s, s2) -> true);
+  }
+
+  record SigningKey(String serializedVerificationKey, byte[] secret, KeyPair keyPair) {
+
+    String sign(String messageId, long timestamp, byte[] payload)
+        throws GeneralSecurityException {
+      byte[] prefix = (messageId + "." + timestamp + ".").getBytes(StandardCharsets.UTF_8);
+      if (secret != null) {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        mac.update(prefix);
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+      }
+      java.security.Signature signature = java.security.Signature.getInstance("Ed25519");
+      signature.initSign(keyPair.getPrivate());
+      signature.update(prefix);
+      signature.update(payload);
+      return Base64.getEncoder().encodeToString(signature.sign());
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.net.http.HttpHeaders;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link CryptoBackend} implementations.
+ *
+ * <p>Any other backend value is looked up as the name of an installed JCA provider, e.g. {@code -p
+ * backend=ACCP} or {@code -p backend=BC} once Amazon Corretto Crypto Provider or BouncyCastle is
+ * on the classpath and registered.
+ *
+ * @author Réda Housni Alaoui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CryptoBackendBenchmark {
+
+  @Param({"jca", "messageDigest"})
+  private String backend;
+
+  @Param({"v1", "v1a"})
+  private String schemeId;
+
+  @Param({"100", "1000", "10000"})
+  private int payloadSize;
+
+  private WebhookSignatureVerifier verifier;
+  private HttpHeaders headers;
+  private byte[] payload;
+
+  @Setup
+  public void setup() throws GeneralSecurityException, WebhookSignatureVerificationException {
+    BenchmarkWebhooks webhooks = new BenchmarkWebhooks(schemeId);
+    BenchmarkWebhooks.SigningKey key = webhooks.generateKey();
+    verifier = webhooks.createVerifier(List.of(key), cryptoBackend());
+    payload = webhooks.generatePayload(payloadSize);
+    headers = webhooks.createHeaders(List.of(key), payload);
+
+    verifier.verify(headers, payload);
+  }
+
+  private CryptoBackend cryptoBackend() {
+    return switch (backend) {
+      case "jca" -> CryptoBackend.jca();
+      case "messageDigest" -> CryptoBackend.messageDigest();
+      default -> {
+        Provider provider = Security.getProvider(backend);
+        if (provider == null) {
+          throw new IllegalArgumentException("No installed provider named <%s>".formatted(backend));
+        }
+        yield CryptoBackend.jca(provider);
+      }
+    };
+  }
+
+  @Benchmark
+  public void verify() throws WebhookSignatureVerificationException {
+    verifier.verify(headers, payload);
+  }
+}
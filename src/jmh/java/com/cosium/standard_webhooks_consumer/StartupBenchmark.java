@@ -0,0 +1,92 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to the first verification in a fresh JVM, as seen by a serverless function
+ * handling its first request.
+ *
+ * <p>The keys and signatures are constants so that the setup does not load the cryptographic
+ * providers on behalf of the measured code.
+ *
+ * @author Réda Housni Alaoui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+  private static final String PAYLOAD = "{\"greetings\": \"Hello World\"}";
+
+  @Param({"v1", "v1a"})
+  private String schemeId;
+
+  private String serializedVerificationKey;
+  private WebhookHeaders headers;
+
+  @Setup
+  public void setup() {
+    String signature;
+    if ("v1".equals(schemeId)) {
+      serializedVerificationKey = "whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=";
+      signature = "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo=";
+    } else {
+      serializedVerificationKey =
+          "whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=";
+      signature =
+          "v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg==";
+    }
+    headers =
+        WebhookHeaders.of(
+            BenchmarkWebhooks.MESSAGE_ID, String.valueOf(BenchmarkWebhooks.TIMESTAMP), signature);
+  }
+
+  /** Builds a verifier and verifies a first message. */
+  @Benchmark
+  public WebhookSignatureVerifier buildAndVerify() throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(serializedVerificationKey)
+            .clock(BenchmarkWebhooks.CLOCK)
+            .build();
+    verifier.verify(headers, PAYLOAD);
+    return verifier;
+  }
+
+  /** Verifies a first message with a verifier warmed up during the setup. */
+  @Benchmark
+  public WebhookSignatureVerifier verifyAfterWarmUp(WarmedUpVerifier warmedUp)
+      throws WebhookSignatureVerificationException {
+    warmedUp.verifier.verify(headers, PAYLOAD);
+    return warmedUp.verifier;
+  }
+
+  /** Only set up by the benchmarks using it, so that the other ones start cold. */
+  @State(Scope.Benchmark)
+  public static class WarmedUpVerifier {
+
+    private WebhookSignatureVerifier verifier;
+
+    @Setup
+    public void setup(StartupBenchmark benchmark) {
+      verifier =
+          WebhookSignatureVerifier.builder(benchmark.serializedVerificationKey)
+              .clock(BenchmarkWebhooks.CLOCK)
+              .warmUpOnBuild(true)
+              .build();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.net.http.HttpHeaders;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the verification of a redelivered message, with and without the verification cache.
+ *
+ * @author Réda Housni Alaoui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VerificationCacheBenchmark {
+
+  @Param({"v1", "v1a"})
+  private String schemeId;
+
+  @Param({"1000", "1000000"})
+  private int payloadSize;
+
+  private WebhookSignatureVerifier uncachedVerifier;
+  private WebhookSignatureVerifier cachedVerifier;
+  private HttpHeaders headers;
+  private byte[] payload;
+
+  @Setup
+  public void setup() throws GeneralSecurityException, WebhookSignatureVerificationException {
+    BenchmarkWebhooks webhooks = new BenchmarkWebhooks(schemeId);
+    BenchmarkWebhooks.SigningKey key = webhooks.generateKey();
+    uncachedVerifier = webhooks.createVerifier(List.of(key));
+    cachedVerifier =
+        WebhookSignatureVerifier.builder(key.serializedVerificationKey())
+            .clock(BenchmarkWebhooks.CLOCK)
+            .verificationCache(1000)
+            .build();
+    payload = webhooks.generatePayload(payloadSize);
+    headers = webhooks.createHeaders(List.of(key), payload);
+
+    uncachedVerifier.verify(headers, payload);
+    cachedVerifier.verify(headers, payload);
+  }
+
+  @Benchmark
+  public VerifiedMessage verifyWithoutCache() throws WebhookSignatureVerificationException {
+    return uncachedVerifier.verify(headers, payload);
+  }
+
+  @Benchmark
+  public VerifiedMessage verifyWithCache() throws WebhookSignatureVerificationException {
+    return cachedVerifier.verify(headers, payload);
+  }
+}
@@ -0,0 +1,70 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.net.http.HttpHeaders;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link WebhookSignatureVerifier#verify(HttpHeaders, byte[])} in the worst case: the
+ * matching key is the last configured one and the matching signature is the last one of the
+ * header.
+ *
+ * @author Réda Housni Alaoui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VerifierBenchmark {
+
+  @Param({"v1", "v1a"})
+  private String schemeId;
+
+  @Param({"100", "10000", "1000000", "5000000"})
+  private int payloadSize;
+
+  @Param({"1", "10"})
+  private int keyCount;
+
+  @Param({"1", "5"})
+  private int signatureCount;
+
+  private WebhookSignatureVerifier verifier;
+  private HttpHeaders headers;
+  private byte[] payload;
+
+  @Setup
+  public void setup() throws GeneralSecurityException, WebhookSignatureVerificationException {
+    BenchmarkWebhooks webhooks = new BenchmarkWebhooks(schemeId);
+    List<BenchmarkWebhooks.SigningKey> verificationKeys = webhooks.generateKeys(keyCount);
+    verifier = webhooks.createVerifier(verificationKeys);
+
+    List<BenchmarkWebhooks.SigningKey> signingKeys =
+        new ArrayList<>(webhooks.generateKeys(signatureCount - 1));
+    signingKeys.add(verificationKeys.get(keyCount - 1));
+    payload = webhooks.generatePayload(payloadSize);
+    headers = webhooks.createHeaders(signingKeys, payload);
+
+    verifier.verify(headers, payload);
+  }
+
+  @Benchmark
+  public void verify() throws WebhookSignatureVerificationException {
+    verifier.verify(headers, payload);
+  }
+}
@@ -0,0 +1,109 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.util.Arrays;
+
+/**
+ * Decodes regions of a string holding standard (RFC 4648 section 4) base64 content.
+ *
+ * <p>Only the canonical encoding is accepted: the length must be a multiple of 4, padding is
+ * mandatory and unused trailing bits must be zero. This keeps decoded comparisons exactly as strict
+ * as comparing the encoded strings.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class CanonicalBase64 {
+
+  private static final int INVALID = -1;
+  private static final int[] DECODING_TABLE = createDecodingTable();
+
+  private CanonicalBase64() {}
+
+  private static int[] createDecodingTable() {
+    int[] table = new int[128];
+    Arrays.fill(table, INVALID);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      table[alphabet.charAt(i)] = i;
+    }
+    return table;
+  }
+
+  /**
+   * @return The number of bytes the region would decode to, or a negative value if the region
+   *     cannot be canonical base64 because of its length
+   */
+  public static int decodedLength(String source, int start, int end) {
+    int length = end - start;
+    if (length == 0 || length % 4 != 0) {
+      return INVALID;
+    }
+    return length / 4 * 3 - padding(source, end);
+  }
+
+  /**
+   * Decodes the region into the destination, which must have room for {@link
+   * #decodedLength(String, int, int)} bytes from the destination offset. Bytes may be written even
+   * if the region turns out not to be canonical base64.
+   *
+   * @return The number of decoded bytes or a negative value if the region is not canonical base64
+   */
+  public static int decode(
+      String source, int start, int end, byte[] destination, int destinationOffset) {
+    int decodedLength = decodedLength(source, start, end);
+    if (decodedLength < 0) {
+      return INVALID;
+    }
+    int padding = padding(source, end);
+
+    int decodedPosition = destinationOffset;
+    int lastQuantumStart = end - 4;
+    for (int i = start; i < lastQuantumStart; i += 4) {
+      int quantum = decodeQuantum(source, i, 4);
+      if (quantum < 0) {
+        return INVALID;
+      }
+      destination[decodedPosition++] = (byte) (quantum >> 16);
+      destination[decodedPosition++] = (byte) (quantum >> 8);
+      destination[decodedPosition++] = (byte) quantum;
+    }
+
+    int quantum = decodeQuantum(source, lastQuantumStart, 4 - padding);
+    if (quantum < 0) {
+      return INVALID;
+    }
+    destination[decodedPosition++] = (byte) (quantum >> 16);
+    if (padding == 2) {
+      return (quantum & 0xFFFF) == 0 ? decodedLength : INVALID;
+    }
+    destination[decodedPosition++] = (byte) (quantum >> 8);
+    if (padding == 1) {
+      return (quantum & 0xFF) == 0 ? decodedLength : INVALID;
+    }
+    destination[decodedPosition] = (byte) quantum;
+    return decodedLength;
+  }
+
+  private static int padding(String source, int end) {
+    return source.charAt(end - 1) == '=' ? (source.charAt(end - 2) == '=' ? 2 : 1) : 0;
+  }
+
+  /**
+   * @return The 24 bits held by the first {@code significantChars} characters, or a negative value
+   *     if one of them is not part of the base64 alphabet
+   */
+  private static int decodeQuantum(String source, int start, int significantChars) {
+    int quantum = 0;
+    for (int i = 0; i < 4; i++) {
+      int sextet = 0;
+      if (i < significantChars) {
+        char c = source.charAt(start + i);
+        sextet = c < DECODING_TABLE.length ? DECODING_TABLE[c] : INVALID;
+        if (sextet == INVALID) {
+          return INVALID;
+        }
+      }
+      quantum = (quantum << 6) | sextet;
+    }
+    return quantum;
+  }
+}
@@ -24,12 +24,6 @@ class CompositeVerificationKeyParser {
             () ->
                 new IllegalArgumentException(
                     "Could not parse verification key <%s>"
-                        .formatted(conceal(serializedVerificationKey))));
-  }
-
-  private String conceal(String serializedVerificationKey) {
-    int halfLength = Math.round(serializedVerificationKey.length() / 2f);
-    return serializedVerificationKey.substring(0, halfLength)
-        + "*".repeat(serializedVerificationKey.length() - halfLength);
+                        .formatted(VerificationKeyParser.conceal(serializedVerificationKey))));
   }
 }
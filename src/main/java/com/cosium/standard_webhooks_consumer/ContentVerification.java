@@ -0,0 +1,28 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Checks candidate signatures against a signed content fed incrementally.
+ *
+ * <p>Either {@link #finish()} or {@link #abort()} must be called to give the borrowed engines
+ * back.
+ *
+ * @author Réda Housni Alaoui
+ */
+interface ContentVerification {
+
+  void update(byte[] bytes, int offset, int length) throws WebhookSignatureVerificationException;
+
+  /** Consumes the remaining bytes of the buffer. */
+  void update(ByteBuffer bytes) throws WebhookSignatureVerificationException;
+
+  /**
+   * @return The index of the first candidate matching the fed content, a negative value if none
+   *     matches
+   */
+  int finish() throws WebhookSignatureVerificationException;
+
+  /** Gives up the verification. Does nothing if the verification is already finished. */
+  void abort();
+}
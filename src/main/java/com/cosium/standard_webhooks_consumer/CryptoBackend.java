@@ -0,0 +1,98 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.SignatureException;
+
+/**
+ * Provides the cryptographic primitives behind the verification keys. The backend is chosen once,
+ * when the {@link WebhookSignatureVerifier} is built.
+ *
+ * <p>Engines are pooled by the verifier. An engine is used by one thread at a time, and is always
+ * given back in its initial state.
+ *
+ * @author Réda Housni Alaoui
+ */
+public interface CryptoBackend {
+
+  /** The JCA implementations of the installed providers, in order of preference. */
+  static CryptoBackend jca() {
+    return JcaCryptoBackend.DEFAULT;
+  }
+
+  /**
+   * @param provider The JCA provider to get every implementation from, e.g. Amazon Corretto Crypto
+   *     Provider or BouncyCastle. It does not need to be installed.
+   */
+  static CryptoBackend jca(Provider provider) {
+    return new JcaCryptoBackend(requireNonNull(provider));
+  }
+
+  /**
+   * HMAC-SHA256 computed in Java on top of the installed SHA-256 {@link
+   * java.security.MessageDigest}, whose compression function is a JVM intrinsic on most platforms.
+   * Ed25519 is delegated to {@link #jca()}.
+   */
+  static CryptoBackend messageDigest() {
+    return MessageDigestCryptoBackend.INSTANCE;
+  }
+
+  /**
+   * @param secret The HMAC secret. Must not be modified afterwards.
+   * @return An engine keyed with the secret
+   */
+  HmacSha256 hmacSha256(byte[] secret) throws GeneralSecurityException;
+
+  /**
+   * @param x509EncodedPublicKey The X.509 encoded Ed25519 public key
+   * @return An engine ready to verify signatures made by the matching private key
+   */
+  Ed25519Verifier ed25519Verifier(byte[] x509EncodedPublicKey) throws GeneralSecurityException;
+
+  interface HmacSha256 {
+
+    void update(byte[] bytes, int offset, int length);
+
+    /** Consumes the remaining bytes of the buffer. */
+    void update(ByteBuffer bytes);
+
+    /** Completes the computation and resets the engine to its initial state. */
+    byte[] doFinal();
+
+    /** Discards the content fed so far. */
+    void reset();
+
+    /**
+     * @return A new engine keyed with the same secret, in its initial state
+     */
+    HmacSha256 newEngine() throws GeneralSecurityException;
+  }
+
+  interface Ed25519Verifier {
+
+    void update(byte[] bytes, int offset, int length) throws SignatureException;
+
+    /** Consumes the remaining bytes of the buffer. */
+    void update(ByteBuffer bytes) throws SignatureException;
+
+    /**
+     * Completes the verification and resets the engine to its initial state.
+     *
+     * @param signature The array holding the signature, from the offset and for the length
+     * @throws SignatureException If the signature is not a well-formed Ed25519 signature. The
+     *     engine must then be {@link #reset()} before being reused.
+     */
+    boolean verify(byte[] signature, int offset, int length) throws SignatureException;
+
+    /** Discards the content fed so far. */
+    void reset() throws GeneralSecurityException;
+
+    /**
+     * @return A new engine bound to the same public key, in its initial state
+     */
+    Ed25519Verifier newEngine() throws GeneralSecurityException;
+  }
+}
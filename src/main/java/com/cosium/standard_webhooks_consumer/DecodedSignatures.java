@@ -0,0 +1,61 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The decoded values of the header signatures sharing a given scheme. Each value is decoded once
+ * per message, into a single array shared by all values, and then checked against every key
+ * supporting the scheme.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class DecodedSignatures {
+
+  private final byte[] values;
+  private final int valueLength;
+  private final int size;
+
+  /**
+   * @param values The decoded values laid out one after the other
+   * @param valueLength The length shared by all values
+   */
+  DecodedSignatures(byte[] values, int valueLength, int size) {
+    this.values = requireNonNull(values);
+    this.valueLength = valueLength;
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** The array holding all values. See {@link #offset(int)} and {@link #valueLength()}. */
+  public byte[] values() {
+    return values;
+  }
+
+  public int offset(int index) {
+    return index * valueLength;
+  }
+
+  public int valueLength() {
+    return valueLength;
+  }
+
+  /**
+   * Compares in constant time, as {@link java.security.MessageDigest#isEqual(byte[], byte[])}.
+   *
+   * @return True if the value at the passed index is equal to the expected bytes
+   */
+  public boolean matches(int index, byte[] expected) {
+    if (expected.length != valueLength) {
+      return false;
+    }
+    int offset = offset(index);
+    int difference = 0;
+    for (int i = 0; i < valueLength; i++) {
+      difference |= expected[i] ^ values[offset + i];
+    }
+    return difference == 0;
+  }
+}
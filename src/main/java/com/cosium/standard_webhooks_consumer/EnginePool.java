@@ -0,0 +1,70 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free pool of pre-initialized cryptographic engines.
+ *
+ * <p>Engines are not bound to threads. A virtual thread borrows an engine for the duration of a
+ * verification only, so the number of live engines never exceeds the pool capacity plus the number
+ * of concurrent verifications. When the pool is empty, a new engine is created. When the pool is
+ * full, a released engine is dropped.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class EnginePool<T> {
+
+  private static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+  private final EngineFactory<T> factory;
+  private final AtomicReferenceArray<T> slots;
+
+  EnginePool(EngineFactory<T> factory) {
+    this(factory, DEFAULT_CAPACITY);
+  }
+
+  EnginePool(EngineFactory<T> factory, int capacity) {
+    this.factory = requireNonNull(factory);
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  public T acquire() throws GeneralSecurityException {
+    int capacity = slots.length();
+    int start = ThreadLocalRandom.current().nextInt(capacity);
+    for (int i = 0; i < capacity; i++) {
+      int index = (start + i) % capacity;
+      if (slots.get(index) == null) {
+        continue;
+      }
+      T engine = slots.getAndSet(index, null);
+      if (engine != null) {
+        return engine;
+      }
+    }
+    return factory.create();
+  }
+
+  /**
+   * @param engine An engine in its initial state, ready to be used by the next {@link #acquire()}
+   *     caller
+   */
+  public void release(T engine) {
+    int capacity = slots.length();
+    int start = ThreadLocalRandom.current().nextInt(capacity);
+    for (int i = 0; i < capacity; i++) {
+      int index = (start + i) % capacity;
+      if (slots.get(index) == null && slots.compareAndSet(index, null, engine)) {
+        return;
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface EngineFactory<T> {
+    T create() throws GeneralSecurityException;
+  }
+}
@@ -0,0 +1,269 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers message ids in buckets partitioned by message timestamp.
+ *
+ * <p>The buckets form a ring covering the whole allowed timestamp window, sized from the skew of
+ * the {@link WebhookSignatureVerifier} the guard is attached to. A bucket is only reused once all
+ * the timestamps it covers left the window, at which point it is dropped as a whole, without
+ * scanning its entries. Recording a message is a lock-free lookup of its bucket followed by a
+ * concurrent set insertion.
+ *
+ * <p>Once {@code maxEntries} message ids are remembered, new messages are refused until buckets
+ * expire. Refusing rather than forgetting keeps replays impossible, and a standard compliant sender
+ * retries refused messages later. Each message id reserves its room before being recorded, so that
+ * concurrent messages never exceed the cap.
+ *
+ * @author Réda Housni Alaoui
+ */
+public final class InMemoryReplayGuard implements ReplayGuard {
+
+  private static final int BUCKETS_PER_SKEW = 5;
+
+  private final int maxEntries;
+  private final AtomicInteger entryCount = new AtomicInteger();
+  private final AtomicLong latestEpoch = new AtomicLong(Long.MIN_VALUE);
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder refusalCount = new LongAdder();
+  private volatile Ring ring;
+
+  InMemoryReplayGuard(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be strictly positive");
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Sizes the buckets from the skew of the verifier the guard is attached to. A guard can be shared
+   * by verifiers having the same skew only.
+   */
+  synchronized void attach(Duration messageTimestampAllowedSkew) {
+    long skewSeconds = requireNonNull(messageTimestampAllowedSkew).toSeconds();
+    if (skewSeconds < 0) {
+      throw new IllegalArgumentException("messageTimestampAllowedSkew cannot be negative");
+    }
+    if (ring == null) {
+      ring = new Ring(skewSeconds);
+      return;
+    }
+    if (ring.skewSeconds != skewSeconds) {
+      throw new IllegalArgumentException(
+          "The replay guard is already attached to a verifier allowing a skew of %s seconds"
+              .formatted(ring.skewSeconds));
+    }
+  }
+
+  @Override
+  public Result markReceived(String messageId, long messageTimestamp) {
+    requireNonNull(messageId);
+    Ring ring = this.ring;
+    if (ring == null) {
+      throw new IllegalStateException("The replay guard is not attached to any verifier");
+    }
+    AtomicReferenceArray<Bucket> buckets = ring.buckets;
+    long epoch = Math.floorDiv(messageTimestamp, ring.bucketWidthSeconds);
+    long oldestLiveEpoch = latestEpoch.accumulateAndGet(epoch, Math::max) - buckets.length() + 1;
+
+    Bucket bucket = epoch < oldestLiveEpoch ? null : bucket(buckets, epoch);
+    if (bucket == null) {
+      // The message is older than the window covered by the buckets
+      refusalCount.increment();
+      return Result.REFUSED;
+    }
+    if (bucket.messageIds.contains(messageId)) {
+      hitCount.increment();
+      return Result.REPLAYED;
+    }
+    if (!reserveEntry()) {
+      evictExpiredBuckets(buckets);
+      if (!reserveEntry()) {
+        refusalCount.increment();
+        return Result.REFUSED;
+      }
+    }
+    if (!bucket.reserveEntry()) {
+      // The bucket was evicted in the meantime
+      entryCount.decrementAndGet();
+      refusalCount.increment();
+      return Result.REFUSED;
+    }
+    if (!bucket.messageIds.add(messageId)) {
+      if (bucket.releaseEntry()) {
+        entryCount.decrementAndGet();
+      }
+      hitCount.increment();
+      return Result.REPLAYED;
+    }
+    return Result.RECORDED;
+  }
+
+  /**
+   * @return False if the guard is full
+   */
+  private boolean reserveEntry() {
+    while (true) {
+      int count = entryCount.get();
+      if (count >= maxEntries) {
+        return false;
+      }
+      if (entryCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return The bucket of the passed epoch, created if needed. Null if the slot is held by a more
+   *     recent epoch.
+   */
+  private Bucket bucket(AtomicReferenceArray<Bucket> buckets, long epoch) {
+    int slot = Math.floorMod(epoch, buckets.length());
+    while (true) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null && bucket.epoch == epoch) {
+        return bucket;
+      }
+      if (bucket != null && bucket.epoch > epoch) {
+        return null;
+      }
+      Bucket newBucket = new Bucket(epoch);
+      if (buckets.compareAndSet(slot, bucket, newBucket)) {
+        evicted(bucket);
+        return newBucket;
+      }
+    }
+  }
+
+  private void evictExpiredBuckets(AtomicReferenceArray<Bucket> buckets) {
+    long oldestLiveEpoch = latestEpoch.get() - buckets.length() + 1;
+    for (int slot = 0; slot < buckets.length(); slot++) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null
+          && bucket.epoch < oldestLiveEpoch
+          && buckets.compareAndSet(slot, bucket, null)) {
+        evicted(bucket);
+      }
+    }
+  }
+
+  private void evicted(Bucket bucket) {
+    if (bucket == null) {
+      return;
+    }
+    int evictedEntryCount = bucket.evict();
+    entryCount.addAndGet(-evictedEntryCount);
+    evictionCount.add(evictedEntryCount);
+  }
+
+  /**
+   * @return The number of remembered message ids
+   */
+  public int size() {
+    return entryCount.get();
+  }
+
+  /**
+   * @return The number of replayed messages detected so far
+   */
+  public long hitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * @return The number of message ids forgotten so far because their timestamp left the allowed
+   *     window
+   */
+  public long evictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * @return The number of messages refused so far because the guard was full, or because their
+   *     timestamp was older than every remembered one
+   */
+  public long refusalCount() {
+    return refusalCount.sum();
+  }
+
+  private static final class Ring {
+
+    private final long skewSeconds;
+    private final long bucketWidthSeconds;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private Ring(long skewSeconds) {
+      this.skewSeconds = skewSeconds;
+      bucketWidthSeconds = Math.max(1, skewSeconds / BUCKETS_PER_SKEW);
+      // The allowed window spans 2 skews. One more bucket absorbs the partially covered bucket at
+      // each end.
+      int bucketCount = (int) ((2 * skewSeconds + bucketWidthSeconds - 1) / bucketWidthSeconds) + 2;
+      buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+  }
+
+  private static final class Bucket {
+
+    private static final int EVICTED = Integer.MIN_VALUE;
+
+    private final long epoch;
+    private final Set<String> messageIds = ConcurrentHashMap.newKeySet();
+
+    /** The entries reserved in the guard for this bucket, {@link #EVICTED} once evicted */
+    private final AtomicInteger reservedEntryCount = new AtomicInteger();
+
+    private Bucket(long epoch) {
+      this.epoch = epoch;
+    }
+
+    /**
+     * @return False if the bucket was evicted
+     */
+    private boolean reserveEntry() {
+      while (true) {
+        int count = reservedEntryCount.get();
+        if (count == EVICTED) {
+          return false;
+        }
+        if (reservedEntryCount.compareAndSet(count, count + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * @return False if the bucket was evicted, in which case the eviction already gave the entry
+     *     back to the guard
+     */
+    private boolean releaseEntry() {
+      while (true) {
+        int count = reservedEntryCount.get();
+        if (count == EVICTED) {
+          return false;
+        }
+        if (reservedEntryCount.compareAndSet(count, count - 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * @return The number of entries to give back to the guard
+     */
+    private int evict() {
+      int count = reservedEntryCount.getAndSet(EVICTED);
+      return count == EVICTED ? 0 : count;
+    }
+  }
+}
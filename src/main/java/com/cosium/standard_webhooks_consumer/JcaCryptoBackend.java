@@ -0,0 +1,149 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.X509EncodedKeySpec;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+final class JcaCryptoBackend implements CryptoBackend {
+
+  static final JcaCryptoBackend DEFAULT = new JcaCryptoBackend(null);
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  private static final String SIGNATURE_ALGORITHM = "Ed25519";
+
+  /** Null to let the JCA pick the preferred installed provider */
+  private final Provider provider;
+
+  JcaCryptoBackend(Provider provider) {
+    this.provider = provider;
+  }
+
+  @Override
+  public HmacSha256 hmacSha256(byte[] secret) throws GeneralSecurityException {
+    return new JcaHmacSha256(new SecretKeySpec(secret, HMAC_ALGORITHM));
+  }
+
+  @Override
+  public Ed25519Verifier ed25519Verifier(byte[] x509EncodedPublicKey)
+      throws GeneralSecurityException {
+    KeyFactory keyFactory =
+        provider == null
+            ? KeyFactory.getInstance(SIGNATURE_ALGORITHM)
+            : KeyFactory.getInstance(SIGNATURE_ALGORITHM, provider);
+    return new JcaEd25519Verifier(
+        keyFactory.generatePublic(
+            new X509EncodedKeySpec(x509EncodedPublicKey, SIGNATURE_ALGORITHM)));
+  }
+
+  private Mac newKeyedMac(SecretKeySpec keySpec) throws GeneralSecurityException {
+    Mac mac =
+        provider == null
+            ? Mac.getInstance(HMAC_ALGORITHM)
+            : Mac.getInstance(HMAC_ALGORITHM, provider);
+    mac.init(keySpec);
+    return mac;
+  }
+
+  private class JcaHmacSha256 implements HmacSha256 {
+
+    private final SecretKeySpec keySpec;
+    private final Mac mac;
+
+    private JcaHmacSha256(SecretKeySpec keySpec) throws GeneralSecurityException {
+      this(keySpec, newKeyedMac(keySpec));
+    }
+
+    private JcaHmacSha256(SecretKeySpec keySpec, Mac mac) {
+      this.keySpec = keySpec;
+      this.mac = mac;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+      mac.update(bytes, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) {
+      mac.update(bytes);
+    }
+
+    @Override
+    public byte[] doFinal() {
+      return mac.doFinal();
+    }
+
+    @Override
+    public void reset() {
+      mac.reset();
+    }
+
+    /**
+     * Cloning skips both the provider lookup and the HMAC key schedule. Providers that do not
+     * support cloning fall back to a fresh initialization.
+     */
+    @Override
+    public HmacSha256 newEngine() throws GeneralSecurityException {
+      Mac newMac;
+      try {
+        newMac = (Mac) mac.clone();
+        newMac.reset();
+      } catch (CloneNotSupportedException e) {
+        newMac = newKeyedMac(keySpec);
+      }
+      return new JcaHmacSha256(keySpec, newMac);
+    }
+  }
+
+  private class JcaEd25519Verifier implements Ed25519Verifier {
+
+    private final PublicKey publicKey;
+    private final Signature signature;
+
+    private JcaEd25519Verifier(PublicKey publicKey) throws GeneralSecurityException {
+      this.publicKey = publicKey;
+      signature =
+          provider == null
+              ? Signature.getInstance(SIGNATURE_ALGORITHM)
+              : Signature.getInstance(SIGNATURE_ALGORITHM, provider);
+      signature.initVerify(publicKey);
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) throws SignatureException {
+      signature.update(bytes, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) throws SignatureException {
+      signature.update(bytes);
+    }
+
+    @Override
+    public boolean verify(byte[] signatureBytes, int offset, int length)
+        throws SignatureException {
+      return signature.verify(signatureBytes, offset, length);
+    }
+
+    @Override
+    public void reset() throws GeneralSecurityException {
+      // Initializing again discards the message fed so far
+      signature.initVerify(publicKey);
+    }
+
+    @Override
+    public Ed25519Verifier newEngine() throws GeneralSecurityException {
+      return new JcaEd25519Verifier(publicKey);
+    }
+  }
+}
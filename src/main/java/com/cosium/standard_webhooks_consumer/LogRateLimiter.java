@@ -0,0 +1,38 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets at most one log event through per interval, so that malicious requests cannot flood the
+ * logs.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class LogRateLimiter {
+
+  private static final long SUPPRESSED = -1;
+
+  private final long intervalNanos;
+  private final AtomicLong nextPermitNanos;
+  private final AtomicLong suppressedEvents = new AtomicLong();
+
+  LogRateLimiter(Duration interval) {
+    intervalNanos = interval.toNanos();
+    nextPermitNanos = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * @return The number of events suppressed since the previous permit if the current event should
+   *     be logged, a negative value otherwise.
+   */
+  public long tryAcquire() {
+    long now = System.nanoTime();
+    long nextPermit = nextPermitNanos.get();
+    if (now - nextPermit < 0 || !nextPermitNanos.compareAndSet(nextPermit, now + intervalNanos)) {
+      suppressedEvents.incrementAndGet();
+      return SUPPRESSED;
+    }
+    return suppressedEvents.getAndSet(0);
+  }
+}
@@ -0,0 +1,160 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Implements HMAC-SHA256 as specified by RFC 2104 directly on top of {@link MessageDigest}, without
+ * going through the {@link javax.crypto.Mac} provider machinery.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class MessageDigestCryptoBackend implements CryptoBackend {
+
+  static final MessageDigestCryptoBackend INSTANCE = new MessageDigestCryptoBackend();
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int BLOCK_LENGTH = 64;
+  private static final int HASH_LENGTH = 32;
+  private static final byte INNER_PAD = 0x36;
+  private static final byte OUTER_PAD = 0x5c;
+
+  private MessageDigestCryptoBackend() {}
+
+  @Override
+  public HmacSha256 hmacSha256(byte[] secret) throws GeneralSecurityException {
+    byte[] key = secret;
+    if (key.length > BLOCK_LENGTH) {
+      key = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(key);
+    }
+    byte[] innerPadBlock = Arrays.copyOf(key, BLOCK_LENGTH);
+    byte[] outerPadBlock = Arrays.copyOf(key, BLOCK_LENGTH);
+    for (int i = 0; i < BLOCK_LENGTH; i++) {
+      innerPadBlock[i] ^= INNER_PAD;
+      outerPadBlock[i] ^= OUTER_PAD;
+    }
+    return new DigestHmacSha256(new KeyedDigest(innerPadBlock), new KeyedDigest(outerPadBlock));
+  }
+
+  @Override
+  public Ed25519Verifier ed25519Verifier(byte[] x509EncodedPublicKey)
+      throws GeneralSecurityException {
+    return JcaCryptoBackend.DEFAULT.ed25519Verifier(x509EncodedPublicKey);
+  }
+
+  /**
+   * Both the inner and the outer digest start every message by absorbing a constant key block. The
+   * digests are snapshotted right after that block, and each message starts from a clone of the
+   * snapshot instead of compressing the block again.
+   */
+  private static class DigestHmacSha256 implements HmacSha256 {
+
+    private final KeyedDigest innerKeyedDigest;
+    private final KeyedDigest outerKeyedDigest;
+    private final byte[] innerHash = new byte[HASH_LENGTH];
+    private MessageDigest innerDigest;
+    private MessageDigest outerDigest;
+
+    private DigestHmacSha256(KeyedDigest innerKeyedDigest, KeyedDigest outerKeyedDigest)
+        throws GeneralSecurityException {
+      this.innerKeyedDigest = innerKeyedDigest;
+      this.outerKeyedDigest = outerKeyedDigest;
+      innerDigest = innerKeyedDigest.newDigest();
+      outerDigest = outerKeyedDigest.newDigest();
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+      innerDigest.update(bytes, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) {
+      innerDigest.update(bytes);
+    }
+
+    @Override
+    public byte[] doFinal() {
+      try {
+        innerDigest.digest(innerHash, 0, HASH_LENGTH);
+      } catch (DigestException e) {
+        throw new IllegalStateException(e);
+      }
+      innerDigest = innerKeyedDigest.restart(innerDigest);
+      outerDigest.update(innerHash);
+      byte[] result = outerDigest.digest();
+      outerDigest = outerKeyedDigest.restart(outerDigest);
+      return result;
+    }
+
+    @Override
+    public void reset() {
+      innerDigest = innerKeyedDigest.restart(innerDigest);
+    }
+
+    @Override
+    public HmacSha256 newEngine() throws GeneralSecurityException {
+      return new DigestHmacSha256(innerKeyedDigest, outerKeyedDigest);
+    }
+  }
+
+  /**
+   * A SHA-256 digest state right after absorbing a padded key block. The snapshot is shared by all
+   * the engines of a key and is never updated, so it can be cloned concurrently.
+   */
+  private static class KeyedDigest {
+
+    private final byte[] padBlock;
+    /** Null if the digest implementation cannot be cloned */
+    private final MessageDigest snapshot;
+
+    private KeyedDigest(byte[] padBlock) throws NoSuchAlgorithmException {
+      this.padBlock = padBlock;
+      MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+      digest.update(padBlock);
+      MessageDigest clonableDigest;
+      try {
+        digest.clone();
+        clonableDigest = digest;
+      } catch (CloneNotSupportedException e) {
+        clonableDigest = null;
+      }
+      snapshot = clonableDigest;
+    }
+
+    MessageDigest newDigest() throws NoSuchAlgorithmException {
+      if (snapshot != null) {
+        return cloneSnapshot();
+      }
+      MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+      digest.update(padBlock);
+      return digest;
+    }
+
+    /**
+     * @param digest A digest of this key, in any state
+     * @return A digest of this key that absorbed the key block only. It may be the passed digest.
+     */
+    MessageDigest restart(MessageDigest digest) {
+      if (snapshot != null) {
+        return cloneSnapshot();
+      }
+      digest.reset();
+      digest.update(padBlock);
+      return digest;
+    }
+
+    private MessageDigest cloneSnapshot() {
+      try {
+        return (MessageDigest) snapshot.clone();
+      } catch (CloneNotSupportedException e) {
+        // The snapshot was successfully cloned at construction
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.cosium.standard_webhooks_consumer;
+
+/**
+ * Parses the value of the webhook-timestamp header without throwing nor allocating.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class MessageTimestamp {
+
+  /** Returned for values that are not timestamps. */
+  static final long MALFORMED = Long.MIN_VALUE;
+
+  /** Any longer value could overflow, and is centuries away from the current time anyway. */
+  private static final int MAX_DIGITS = 18;
+
+  private MessageTimestamp() {}
+
+  /**
+   * @return The timestamp in seconds, or {@link #MALFORMED}
+   */
+  static long parse(String value) {
+    int length = value.length();
+    int start = 0;
+    boolean negative = false;
+    if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negative = value.charAt(0) == '-';
+      start = 1;
+    }
+    int digitCount = length - start;
+    if (digitCount == 0 || digitCount > MAX_DIGITS) {
+      return MALFORMED;
+    }
+    long timestamp = 0;
+    for (int i = start; i < length; i++) {
+      int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return MALFORMED;
+      }
+      timestamp = timestamp * 10 + digit;
+    }
+    return negative ? -timestamp : timestamp;
+  }
+}
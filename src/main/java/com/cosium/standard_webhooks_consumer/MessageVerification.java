@@ -0,0 +1,357 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The verification of one webhook message whose headers were already validated. Only the payload
+ * remains to be fed.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class MessageVerification {
+
+  private static final List<SignatureSchemeId> KNOWN_SIGNATURE_SCHEME_IDS =
+      List.of(SignatureSchemeId.V1, SignatureSchemeId.V1A);
+
+  private final String messageId;
+  private final long timestamp;
+  private final byte[] signedContentPrefix;
+  private final SignatureHeader signatures;
+  private final List<VerificationKey> keys;
+  private final List<DecodedSignatures> keyCandidates;
+  private final ReplayGuard replayGuard;
+  private final VerificationKeys verificationKeys;
+  private final VerificationMetrics metrics;
+  private final VerificationCache cache;
+  private long headerParsingNanos;
+  private long timestampCheckNanos;
+  private long cryptoNanos;
+
+  private MessageVerification(
+      String messageId,
+      long timestamp,
+      SignatureHeader signatures,
+      List<VerificationKey> keys,
+      List<DecodedSignatures> keyCandidates,
+      ReplayGuard replayGuard,
+      VerificationKeys verificationKeys,
+      VerificationMetrics metrics,
+      VerificationCache cache) {
+    this.messageId = requireNonNull(messageId);
+    this.timestamp = timestamp;
+    this.signedContentPrefix = SignedContentPrefix.encode(messageId, timestamp);
+    this.signatures = requireNonNull(signatures);
+    this.keys = requireNonNull(keys);
+    this.keyCandidates = requireNonNull(keyCandidates);
+    this.replayGuard = requireNonNull(replayGuard);
+    this.verificationKeys = requireNonNull(verificationKeys);
+    this.metrics = requireNonNull(metrics);
+    this.cache = requireNonNull(cache);
+  }
+
+  /**
+   * Pairs each key with the decoded signatures it supports.
+   *
+   * @throws WebhookSignatureVerificationException if no key supports any of the signatures
+   */
+  public static MessageVerification prepare(
+      String messageId,
+      long timestamp,
+      SignatureHeader signatures,
+      VerificationKeys verificationKeys,
+      ReplayGuard replayGuard,
+      VerificationMetrics metrics,
+      VerificationCache cache)
+      throws WebhookSignatureVerificationException {
+
+    boolean supportingKeyFound = false;
+    List<VerificationKey> keys = new ArrayList<>();
+    List<DecodedSignatures> keyCandidates = new ArrayList<>();
+    for (SignatureSchemeId schemeId : KNOWN_SIGNATURE_SCHEME_IDS) {
+      List<VerificationKey> supportingKeys = verificationKeys.supporting(schemeId);
+      if (supportingKeys.isEmpty() || signatures.count(schemeId) == 0) {
+        continue;
+      }
+      supportingKeyFound = true;
+      DecodedSignatures candidates = signatures.decode(schemeId);
+      if (candidates.size() == 0) {
+        continue;
+      }
+      for (int i = 0; i < supportingKeys.size(); i++) {
+        keys.add(supportingKeys.get(i));
+        keyCandidates.add(candidates);
+      }
+    }
+
+    if (!supportingKeyFound) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.NO_SUPPORTING_KEY,
+          "No supporting verification key found for any signature among %s",
+          signatures);
+    }
+    if (keys.isEmpty()) {
+      // None of the supported signatures can be valid, no need to compute anything
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.INVALID_SIGNATURE, "No signature among %s is valid", signatures);
+    }
+
+    return new MessageVerification(
+        messageId,
+        timestamp,
+        signatures,
+        keys,
+        keyCandidates,
+        replayGuard,
+        verificationKeys,
+        metrics,
+        cache);
+  }
+
+  /** Records the time spent before this verification was prepared, to be reported on success. */
+  public void recordPreparation(long headerParsingNanos, long timestampCheckNanos) {
+    this.headerParsingNanos = headerParsingNanos;
+    this.timestampCheckNanos = timestampCheckNanos;
+  }
+
+  /**
+   * Checks one key after the other, stopping at the first match. Messages found in the {@link
+   * VerificationCache} skip the keys.
+   *
+   * @param payload Its remaining bytes are the payload. Its position is left untouched.
+   * @param lightweightFailures Whether the failure should be a stackless exception, keeping only
+   *     the reason of each failed attempt
+   */
+  public VerifiedMessage verify(ByteBuffer payload, boolean lightweightFailures)
+      throws WebhookSignatureVerificationException {
+    long start = metrics.nanoTime();
+    byte[] payloadDigest = null;
+    if (cache.isEnabled()) {
+      try {
+        payloadDigest = cache.digest(payload);
+      } catch (GeneralSecurityException e) {
+        throw new WebhookSignatureVerificationException(
+            VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+      }
+      VerificationKey cachedKey =
+          cache.find(messageId, timestamp, signatures.value(), payloadDigest);
+      // A key retired since then must not verify the message anymore
+      if (cachedKey != null && verificationKeys.indexOf(cachedKey) >= 0) {
+        cryptoNanos = metrics.nanoTime() - start;
+        return markReceived(cachedKey);
+      }
+    }
+
+    AttemptFailures attemptFailures = new AttemptFailures(lightweightFailures);
+    for (int i = 0; i < keys.size(); i++) {
+      boolean matched;
+      try {
+        matched = keys.get(i).verify(keyCandidates.get(i), signedContentPrefix, payload) >= 0;
+      } catch (WebhookSignatureVerificationException | RuntimeException e) {
+        attemptFailures.add(e);
+        continue;
+      }
+      if (matched) {
+        cryptoNanos = metrics.nanoTime() - start;
+        VerificationKey matchingKey = keys.get(i);
+        if (payloadDigest != null) {
+          cache.remember(messageId, timestamp, signatures.value(), payloadDigest, matchingKey);
+        }
+        return markReceived(matchingKey);
+      }
+      attemptFailures.addMismatch();
+    }
+    throw attemptFailures.toException();
+  }
+
+  /**
+   * Starts checking all keys at once against a payload that will be fed incrementally.
+   *
+   * @param lightweightFailures Whether the failure should be a stackless exception, keeping only
+   *     the reason of each failed attempt
+   */
+  public Incremental startIncremental(boolean lightweightFailures)
+      throws WebhookSignatureVerificationException {
+    long start = metrics.nanoTime();
+    List<ContentVerification> verifications = new ArrayList<>(keys.size());
+    try {
+      for (int i = 0; i < keys.size(); i++) {
+        ContentVerification verification = keys.get(i).startVerification(keyCandidates.get(i));
+        verifications.add(verification);
+        verification.update(signedContentPrefix, 0, signedContentPrefix.length);
+      }
+    } catch (WebhookSignatureVerificationException | RuntimeException e) {
+      verifications.forEach(ContentVerification::abort);
+      throw toVerificationException(e);
+    }
+    cryptoNanos = metrics.nanoTime() - start;
+    return new Incremental(verifications, lightweightFailures);
+  }
+
+  private VerifiedMessage markReceived(VerificationKey matchingKey)
+      throws WebhookSignatureVerificationException {
+    switch (replayGuard.markReceived(messageId, timestamp)) {
+      case REPLAYED ->
+          throw WebhookSignatureVerificationException.rejection(
+              VerificationFailureReason.REPLAYED_MESSAGE,
+              "Message <%s> was rejected by the replay guard",
+              messageId);
+      case REFUSED ->
+          throw WebhookSignatureVerificationException.rejection(
+              VerificationFailureReason.UNRECORDED_MESSAGE,
+              "Message <%s> could not be recorded by the replay guard",
+              messageId);
+      case RECORDED -> {}
+    }
+    int keyIndex = verificationKeys.indexOf(matchingKey);
+    metrics.verified(
+        matchingKey.schemeId(), keyIndex, headerParsingNanos, timestampCheckNanos, cryptoNanos);
+    return new VerifiedMessage(
+        messageId,
+        timestamp,
+        matchingKey.schemeId().value(),
+        keyIndex,
+        verificationKeys.labelAt(keyIndex));
+  }
+
+  private static WebhookSignatureVerificationException toVerificationException(Exception e) {
+    if (e instanceof WebhookSignatureVerificationException verificationException) {
+      return verificationException;
+    }
+    return new WebhookSignatureVerificationException(
+        VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+  }
+
+  /** A verification fed with the payload chunk by chunk. */
+  final class Incremental {
+
+    private final List<ContentVerification> verifications;
+    private final boolean lightweightFailures;
+    private boolean done;
+
+    private Incremental(List<ContentVerification> verifications, boolean lightweightFailures) {
+      this.verifications = verifications;
+      this.lightweightFailures = lightweightFailures;
+    }
+
+    public void update(byte[] bytes, int offset, int length)
+        throws WebhookSignatureVerificationException {
+      long start = metrics.nanoTime();
+      try {
+        for (int i = 0; i < verifications.size(); i++) {
+          verifications.get(i).update(bytes, offset, length);
+        }
+      } catch (WebhookSignatureVerificationException | RuntimeException e) {
+        abort();
+        throw toVerificationException(e);
+      }
+      cryptoNanos += metrics.nanoTime() - start;
+    }
+
+    /**
+     * @param bytes Its remaining bytes are fed. Its position is left untouched.
+     */
+    public void update(ByteBuffer bytes) throws WebhookSignatureVerificationException {
+      long start = metrics.nanoTime();
+      try {
+        for (int i = 0; i < verifications.size(); i++) {
+          verifications.get(i).update(bytes.duplicate());
+        }
+      } catch (WebhookSignatureVerificationException | RuntimeException e) {
+        abort();
+        throw toVerificationException(e);
+      }
+      cryptoNanos += metrics.nanoTime() - start;
+    }
+
+    /**
+     * @throws WebhookSignatureVerificationException if no signature matches the fed payload
+     */
+    public VerifiedMessage finish() throws WebhookSignatureVerificationException {
+      if (done) {
+        throw new IllegalStateException("The verification is already done");
+      }
+      done = true;
+      long start = metrics.nanoTime();
+      AttemptFailures attemptFailures = new AttemptFailures(lightweightFailures);
+      VerificationKey matchingKey = null;
+      for (int i = 0; i < verifications.size(); i++) {
+        ContentVerification verification = verifications.get(i);
+        if (matchingKey != null) {
+          verification.abort();
+          continue;
+        }
+        try {
+          if (verification.finish() >= 0) {
+            matchingKey = keys.get(i);
+          } else {
+            attemptFailures.addMismatch();
+          }
+        } catch (WebhookSignatureVerificationException | RuntimeException e) {
+          verification.abort();
+          attemptFailures.add(e);
+        }
+      }
+      if (matchingKey == null) {
+        throw attemptFailures.toException();
+      }
+      cryptoNanos += metrics.nanoTime() - start;
+      return markReceived(matchingKey);
+    }
+
+    public void abort() {
+      done = true;
+      verifications.forEach(ContentVerification::abort);
+    }
+  }
+
+  /** The failed attempts of the keys to verify a message. */
+  private final class AttemptFailures {
+
+    private final boolean lightweight;
+    private final List<VerificationFailureReason> reasons = new ArrayList<>(keys.size());
+    private final List<WebhookSignatureVerificationException> exceptions = new ArrayList<>();
+
+    private AttemptFailures(boolean lightweight) {
+      this.lightweight = lightweight;
+    }
+
+    void addMismatch() {
+      reasons.add(VerificationFailureReason.INVALID_SIGNATURE);
+    }
+
+    void add(Exception e) {
+      if (lightweight) {
+        reasons.add(
+            e instanceof WebhookSignatureVerificationException verificationException
+                ? verificationException.reason()
+                : VerificationFailureReason.CRYPTOGRAPHIC_ERROR);
+        return;
+      }
+      WebhookSignatureVerificationException verificationException = toVerificationException(e);
+      reasons.add(verificationException.reason());
+      exceptions.add(verificationException);
+    }
+
+    WebhookSignatureVerificationException toException() {
+      if (lightweight) {
+        return WebhookSignatureVerificationException.rejection(
+            VerificationFailureReason.INVALID_SIGNATURE,
+            reasons,
+            "No signature among %s is valid",
+            signatures);
+      }
+      WebhookSignatureVerificationException collectingException =
+          new WebhookSignatureVerificationException(
+              VerificationFailureReason.INVALID_SIGNATURE,
+              reasons,
+              "No signature among %s is valid".formatted(signatures));
+      exceptions.forEach(collectingException::addSuppressed);
+      return collectingException;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+
+/**
+ * Adapts {@link MessageVerification.Incremental} to the {@link IOException} based contracts of the
+ * streaming wrappers.
+ *
+ * <p>Once the verification failed, every later attempt to reach the end of the payload fails the
+ * same way, so that a caller swallowing the first failure cannot mistake the payload for a verified
+ * one.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class PayloadVerification {
+
+  private final MessageVerification.Incremental verification;
+  private final VerificationMetrics metrics;
+  private WebhookSignatureVerificationException failure;
+  private boolean done;
+
+  PayloadVerification(MessageVerification.Incremental verification, VerificationMetrics metrics) {
+    this.verification = requireNonNull(verification);
+    this.metrics = requireNonNull(metrics);
+  }
+
+  public void update(byte[] bytes, int offset, int length) throws IOException {
+    throwIfFailed();
+    if (done || length == 0) {
+      return;
+    }
+    try {
+      verification.update(bytes, offset, length);
+    } catch (WebhookSignatureVerificationException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * @throws IOException caused by a {@link WebhookSignatureVerificationException} if no signature
+   *     matches the payload
+   */
+  public void finish() throws IOException {
+    throwIfFailed();
+    if (done) {
+      return;
+    }
+    done = true;
+    try {
+      verification.finish();
+    } catch (WebhookSignatureVerificationException e) {
+      fail(e);
+    }
+  }
+
+  public void abort() {
+    if (done) {
+      return;
+    }
+    done = true;
+    verification.abort();
+  }
+
+  private void fail(WebhookSignatureVerificationException e) throws IOException {
+    done = true;
+    failure = e;
+    metrics.rejected(e);
+    throw new IOException(e);
+  }
+
+  private void throwIfFailed() throws IOException {
+    if (failure != null) {
+      throw new IOException(failure);
+    }
+  }
+}
@@ -1,14 +1,8 @@
 package com.cosium.standard_webhooks_consumer;
 
-import static java.util.Objects.requireNonNull;
-
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.SignatureException;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -18,65 +12,201 @@ import java.util.Optional;
 class PublicKey implements VerificationKey {
 
   private static final String SERIALIZATION_PREFIX = "whpk_";
-  private static final SignatureSchemeId SCHEME_ID = new SignatureSchemeId("v1a");
+  private static final SignatureSchemeId SCHEME_ID = SignatureSchemeId.V1A;
   private static final String ALGORITHM = "Ed25519";
 
-  private final byte[] value;
+  private final EnginePool<CryptoBackend.Ed25519Verifier> verifierPool;
 
-  private PublicKey(byte[] value) {
-    this.value = requireNonNull(value);
+  private PublicKey(CryptoBackend.Ed25519Verifier verifierTemplate) {
+    verifierPool = new EnginePool<>(verifierTemplate::newEngine);
   }
 
-  public static Optional<PublicKey> parseKey(String serializedVerificationKey) {
+  public static Optional<PublicKey> parseKey(
+      String serializedVerificationKey, CryptoBackend cryptoBackend) {
     if (!serializedVerificationKey.startsWith(SERIALIZATION_PREFIX)) {
       return Optional.empty();
     }
-    return Optional.of(
-        new PublicKey(
-            Base64.getDecoder()
-                .decode(serializedVerificationKey.substring(SERIALIZATION_PREFIX.length()))));
+    byte[] encodedKey =
+        Base64.getDecoder()
+            .decode(serializedVerificationKey.substring(SERIALIZATION_PREFIX.length()));
+    CryptoBackend.Ed25519Verifier verifierTemplate;
+    try {
+      verifierTemplate = cryptoBackend.ed25519Verifier(encodedKey);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException(
+          "Could not decode %s public key <%s>"
+              .formatted(ALGORITHM, VerificationKeyParser.conceal(serializedVerificationKey)),
+          e);
+    }
+    return Optional.of(new PublicKey(verifierTemplate));
   }
 
   @Override
-  public boolean supports(SignatureSchemeId signatureSchemeId) {
-    return SCHEME_ID.equals(signatureSchemeId);
+  public SignatureSchemeId schemeId() {
+    return SCHEME_ID;
   }
 
+  /**
+   * Checks the candidates one after the other with a single engine. An engine may buffer the whole
+   * content until it is verified, so this never holds more than one buffered copy of the payload,
+   * however many candidates the header carries.
+   */
   @Override
-  public void verify(String messageId, long timestamp, String payload, Signature signatureToVerify)
+  public int verify(DecodedSignatures candidates, byte[] signedContentPrefix, ByteBuffer payload)
       throws WebhookSignatureVerificationException {
+    CryptoBackend.Ed25519Verifier engine;
+    try {
+      engine = verifierPool.acquire();
+    } catch (GeneralSecurityException e) {
+      throw new WebhookSignatureVerificationException(
+          VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+    }
+    int match = -1;
     try {
-      doVerify(messageId, timestamp, payload, signatureToVerify);
-    } catch (NoSuchAlgorithmException
-        | InvalidKeyException
-        | SignatureException
-        | InvalidKeySpecException
-        | RuntimeException e) {
-      throw new WebhookSignatureVerificationException(e);
+      for (int i = 0; i < candidates.size() && match < 0; i++) {
+        engine.update(signedContentPrefix, 0, signedContentPrefix.length);
+        engine.update(payload.duplicate());
+        if (verify(engine, candidates, i)) {
+          match = i;
+        }
+      }
+    } catch (GeneralSecurityException e) {
+      recycle(engine);
+      throw new WebhookSignatureVerificationException(
+          VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+    } catch (RuntimeException e) {
+      recycle(engine);
+      throw e;
     }
+    verifierPool.release(engine);
+    return match;
   }
 
-  private void doVerify(
-      String messageId, long timestamp, String payload, Signature signatureToVerify)
-      throws NoSuchAlgorithmException,
-          InvalidKeyException,
-          SignatureException,
-          InvalidKeySpecException,
-          WebhookSignatureVerificationException {
-
-    java.security.Signature signature = java.security.Signature.getInstance(ALGORITHM);
+  /** Leaves the engine in its initial state, unless an exception is thrown. */
+  private boolean verify(
+      CryptoBackend.Ed25519Verifier engine, DecodedSignatures candidates, int candidateIndex)
+      throws GeneralSecurityException {
+    try {
+      // A completed verify call resets the engine to its initVerify state
+      return engine.verify(
+          candidates.values(), candidates.offset(candidateIndex), candidates.valueLength());
+    } catch (SignatureException e) {
+      // The candidate is not a well-formed Ed25519 signature
+      engine.reset();
+      return false;
+    }
+  }
 
-    java.security.PublicKey publicKey =
-        KeyFactory.getInstance(ALGORITHM).generatePublic(new X509EncodedKeySpec(value, ALGORITHM));
+  @Override
+  public ContentVerification startVerification(DecodedSignatures candidates)
+      throws WebhookSignatureVerificationException {
+    CryptoBackend.Ed25519Verifier[] engines =
+        new CryptoBackend.Ed25519Verifier[candidates.size()];
+    try {
+      for (int i = 0; i < engines.length; i++) {
+        engines[i] = verifierPool.acquire();
+      }
+    } catch (GeneralSecurityException e) {
+      recycle(engines);
+      throw new WebhookSignatureVerificationException(
+          VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+    }
+    return new Ed25519Verification(engines, candidates);
+  }
 
-    String signedContent = "%s.%s.%s".formatted(messageId, timestamp, payload);
-    signature.initVerify(publicKey);
-    signature.update(signedContent.getBytes(StandardCharsets.UTF_8));
+  private void recycle(CryptoBackend.Ed25519Verifier[] engines) {
+    for (int i = 0; i < engines.length; i++) {
+      if (engines[i] != null) {
+        recycle(engines[i]);
+        engines[i] = null;
+      }
+    }
+  }
 
-    if (signature.verify(signatureToVerify.decode())) {
+  /** Gives back an engine that may hold a partially fed message. */
+  private void recycle(CryptoBackend.Ed25519Verifier engine) {
+    try {
+      engine.reset();
+    } catch (GeneralSecurityException e) {
       return;
     }
+    verifierPool.release(engine);
+  }
+
+  /**
+   * Ed25519 needs the candidate signature to verify a message, so each candidate gets its own
+   * engine and every engine is fed the whole content. Only used when the content cannot be fed
+   * again, since every engine may buffer its own copy of the content.
+   */
+  private class Ed25519Verification implements ContentVerification {
+
+    private final CryptoBackend.Ed25519Verifier[] engines;
+    private final DecodedSignatures candidates;
+
+    private Ed25519Verification(
+        CryptoBackend.Ed25519Verifier[] engines, DecodedSignatures candidates) {
+      this.engines = engines;
+      this.candidates = candidates;
+    }
 
-    throw new WebhookSignatureVerificationException("%s is not valid".formatted(signatureToVerify));
+    @Override
+    public void update(byte[] bytes, int offset, int length)
+        throws WebhookSignatureVerificationException {
+      try {
+        for (CryptoBackend.Ed25519Verifier engine : engines) {
+          engine.update(bytes, offset, length);
+        }
+      } catch (SignatureException e) {
+        throw new WebhookSignatureVerificationException(
+            VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+      }
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) throws WebhookSignatureVerificationException {
+      try {
+        for (CryptoBackend.Ed25519Verifier engine : engines) {
+          engine.update(bytes.duplicate());
+        }
+      } catch (SignatureException e) {
+        throw new WebhookSignatureVerificationException(
+            VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
+      }
+      bytes.position(bytes.limit());
+    }
+
+    @Override
+    public int finish() {
+      int match = -1;
+      for (int i = 0; i < engines.length; i++) {
+        CryptoBackend.Ed25519Verifier engine = engines[i];
+        engines[i] = null;
+        if (match >= 0) {
+          recycle(engine);
+          continue;
+        }
+        boolean valid;
+        try {
+          valid =
+              engine.verify(
+                  candidates.values(), candidates.offset(i), candidates.valueLength());
+        } catch (SignatureException e) {
+          // The candidate is not a well-formed Ed25519 signature
+          recycle(engine);
+          continue;
+        }
+        // A completed verify call resets the engine to its initVerify state
+        verifierPool.release(engine);
+        if (valid) {
+          match = i;
+        }
+      }
+      return match;
+    }
+
+    @Override
+    public void abort() {
+      recycle(engines);
+    }
   }
 }
@@ -0,0 +1,39 @@
+package com.cosium.standard_webhooks_consumer;
+
+/**
+ * Rejects messages whose id was already received.
+ *
+ * <p>A message is only presented to the guard once its signature was verified, so that
+ * unauthenticated requests cannot burn message ids.
+ *
+ * @author Réda Housni Alaoui
+ */
+@FunctionalInterface
+public interface ReplayGuard {
+
+  /**
+   * Messages are remembered until their timestamp leaves the skew window of the {@link
+   * WebhookSignatureVerifier} the guard is given to.
+   *
+   * @param maxEntries The maximum number of message ids to remember
+   */
+  static InMemoryReplayGuard inMemory(int maxEntries) {
+    return new InMemoryReplayGuard(maxEntries);
+  }
+
+  /**
+   * Atomically records the message.
+   *
+   * @param messageTimestamp The verified message timestamp in seconds
+   */
+  Result markReceived(String messageId, long messageTimestamp);
+
+  enum Result {
+    /** The message was not received before. It is now recorded. */
+    RECORDED,
+    /** The message was already recorded. */
+    REPLAYED,
+    /** The message cannot be recorded, e.g. because the guard is full. */
+    REFUSED
+  }
+}
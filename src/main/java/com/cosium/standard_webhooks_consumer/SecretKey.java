@@ -1,14 +1,9 @@
 package com.cosium.standard_webhooks_consumer;
 
-import static java.util.Objects.requireNonNull;
-
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
 import java.util.Optional;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 /**
  * @author Réda Housni Alaoui
@@ -16,65 +11,95 @@ import javax.crypto.spec.SecretKeySpec;
 class SecretKey implements VerificationKey {
 
   private static final String SERIALIZATION_PREFIX = "whsec_";
-  private static final SignatureSchemeId SCHEME_ID = new SignatureSchemeId("v1");
-  private static final String ALGORITHM = "HmacSHA256";
+  private static final SignatureSchemeId SCHEME_ID = SignatureSchemeId.V1;
 
-  private final byte[] value;
+  private final EnginePool<CryptoBackend.HmacSha256> macPool;
 
-  private SecretKey(byte[] value) {
-    this.value = requireNonNull(value);
+  private SecretKey(CryptoBackend.HmacSha256 keyedMacTemplate) {
+    macPool = new EnginePool<>(keyedMacTemplate::newEngine);
   }
 
-  public static Optional<SecretKey> parseKey(String serializedVerificationKey) {
+  public static Optional<SecretKey> parseKey(
+      String serializedVerificationKey, CryptoBackend cryptoBackend) {
     if (!serializedVerificationKey.startsWith(SERIALIZATION_PREFIX)) {
       return Optional.empty();
     }
-    return Optional.of(
-        new SecretKey(
-            Base64.getDecoder()
-                .decode(serializedVerificationKey.substring(SERIALIZATION_PREFIX.length()))));
+    byte[] secret =
+        Base64.getDecoder()
+            .decode(serializedVerificationKey.substring(SERIALIZATION_PREFIX.length()));
+    try {
+      return Optional.of(new SecretKey(cryptoBackend.hmacSha256(secret)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException(e);
+    }
   }
 
   @Override
-  public boolean supports(SignatureSchemeId signatureSchemeId) {
-    return SCHEME_ID.equals(signatureSchemeId);
+  public SignatureSchemeId schemeId() {
+    return SCHEME_ID;
   }
 
   @Override
-  public void verify(String messageId, long timestamp, String payload, Signature signatureToVerify)
+  public ContentVerification startVerification(DecodedSignatures candidates)
       throws WebhookSignatureVerificationException {
-
     try {
-      doVerify(messageId, timestamp, payload, signatureToVerify);
-    } catch (RuntimeException e) {
-      throw new WebhookSignatureVerificationException(e);
+      return new MacVerification(macPool.acquire(), candidates);
+    } catch (GeneralSecurityException e) {
+      throw new WebhookSignatureVerificationException(
+          VerificationFailureReason.CRYPTOGRAPHIC_ERROR, e);
     }
   }
 
-  private void doVerify(
-      String messageId, long timestamp, String payload, Signature signatureToVerify)
-      throws WebhookSignatureVerificationException {
-    String expectedBase64EncodedSignatureContent;
-    try {
-      expectedBase64EncodedSignatureContent = sign(messageId, timestamp, payload);
-    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-      throw new WebhookSignatureVerificationException(e);
+  private class MacVerification implements ContentVerification {
+
+    private final DecodedSignatures candidates;
+    private CryptoBackend.HmacSha256 mac;
+
+    private MacVerification(CryptoBackend.HmacSha256 mac, DecodedSignatures candidates) {
+      this.mac = mac;
+      this.candidates = candidates;
     }
 
-    if (expectedBase64EncodedSignatureContent.equals(signatureToVerify.base64EncodedValue())) {
-      return;
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+      mac.update(bytes, offset, length);
     }
 
-    throw new WebhookSignatureVerificationException("%s is not valid".formatted(signatureToVerify));
-  }
+    @Override
+    public void update(ByteBuffer bytes) {
+      mac.update(bytes);
+    }
+
+    @Override
+    public int finish() {
+      byte[] expectedSignature;
+      try {
+        expectedSignature = mac.doFinal();
+      } catch (RuntimeException e) {
+        abort();
+        throw e;
+      }
+      // doFinal already reset the engine
+      macPool.release(mac);
+      mac = null;
 
-  private String sign(String messageId, long timestamp, String payload)
-      throws NoSuchAlgorithmException, InvalidKeyException {
-    String contentToSign = "%s.%s.%s".formatted(messageId, timestamp, payload);
-    Mac sha512Hmac = Mac.getInstance(ALGORITHM);
-    SecretKeySpec keySpec = new SecretKeySpec(value, ALGORITHM);
-    sha512Hmac.init(keySpec);
-    byte[] macData = sha512Hmac.doFinal(contentToSign.getBytes(StandardCharsets.UTF_8));
-    return Base64.getEncoder().encodeToString(macData);
+      for (int i = 0; i < candidates.size(); i++) {
+        if (candidates.matches(i, expectedSignature)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public void abort() {
+      if (mac == null) {
+        return;
+      }
+      CryptoBackend.HmacSha256 abortedMac = mac;
+      mac = null;
+      abortedMac.reset();
+      macPool.release(abortedMac);
+    }
   }
 }
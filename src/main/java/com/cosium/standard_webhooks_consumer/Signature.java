@@ -1,7 +1,5 @@
 package com.cosium.standard_webhooks_consumer;
 
-import java.util.Base64;
-
 /**
  * @author Réda Housni Alaoui
  */
@@ -12,8 +10,4 @@ record Signature(String base64EncodedValue) {
       throw new IllegalArgumentException("base64EncodedValue cannot be blank");
     }
   }
-
-  public byte[] decode() {
-    return Base64.getDecoder().decode(base64EncodedValue);
-  }
 }
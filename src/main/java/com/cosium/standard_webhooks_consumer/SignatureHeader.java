@@ -0,0 +1,251 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The signatures held by a "webhook-signature" header value.
+ *
+ * <p>The header value is scanned once. Each signature is kept as a (scheme offset, value offset)
+ * view over the header value. Nothing is extracted from the header value until a caller asks for
+ * it.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class SignatureHeader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SignatureHeader.class);
+  private static final LogRateLimiter MALFORMED_SIGNATURE_LOG_RATE_LIMITER =
+      new LogRateLimiter(Duration.ofSeconds(10));
+
+  private static final String NAME = WebhookHeaders.SIGNATURE_HEADER_NAME;
+  static final int MAX_LENGTH = 4096;
+  static final int MAX_SIGNATURES = 16;
+
+  private static final char SIGNATURE_DELIMITER = ' ';
+  private static final char SCHEME_DELIMITER = ',';
+
+  private static final int SCHEME_START = 0;
+  private static final int SCHEME_END = 1;
+  private static final int VALUE_END = 2;
+  private static final int BOUNDS_PER_SIGNATURE = 3;
+
+  private static final int V1_SIGNATURE_LENGTH = 32;
+
+  /** The base64 length of a 32 bytes HMAC-SHA256 signature. */
+  private static final int V1_ENCODED_SIGNATURE_LENGTH = 44;
+
+  private static final int V1A_SIGNATURE_LENGTH = 64;
+
+  /** The base64 length of a 64 bytes Ed25519 signature. */
+  private static final int V1A_ENCODED_SIGNATURE_LENGTH = 88;
+
+  private final String value;
+  private final int[] bounds;
+  private final int size;
+
+  private SignatureHeader(String value, int[] bounds, int size) {
+    this.value = requireNonNull(value);
+    this.bounds = requireNonNull(bounds);
+    this.size = size;
+  }
+
+  public static SignatureHeader parseAtLeastOne(WebhookHeaders headers)
+      throws WebhookSignatureVerificationException {
+    String value = headers.firstValue(NAME);
+    if (value == null || value.isBlank()) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MISSING_HEADER, "No value found for header <%s>", NAME);
+    }
+    if (value.length() > MAX_LENGTH) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MALFORMED_SIGNATURE,
+          "Value of header <%s> is longer than %s characters",
+          NAME,
+          MAX_LENGTH);
+    }
+
+    SignatureHeader signatureHeader = scan(value);
+    if (signatureHeader.size == 0) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MALFORMED_SIGNATURE,
+          "No well-formed signature(s) found for signature header value <%s>. A well-formed signature should have the form '$version,$base64encodedContent'.",
+          value);
+    }
+    return signatureHeader;
+  }
+
+  private static SignatureHeader scan(String value) {
+    int[] bounds = new int[MAX_SIGNATURES * BOUNDS_PER_SIGNATURE];
+    int size = 0;
+    int ignored = 0;
+
+    int length = value.length();
+    int signatureStart = 0;
+    int schemeEnd = -1;
+    boolean malformed = false;
+    for (int i = 0; i <= length; i++) {
+      char c = i == length ? SIGNATURE_DELIMITER : value.charAt(i);
+      if (c == SCHEME_DELIMITER) {
+        malformed |= schemeEnd >= 0;
+        schemeEnd = i;
+        continue;
+      }
+      if (c != SIGNATURE_DELIMITER) {
+        malformed |= Character.isWhitespace(c);
+        continue;
+      }
+      if (i > signatureStart) {
+        boolean wellFormed = !malformed && schemeEnd > signatureStart && schemeEnd < i - 1;
+        if (wellFormed && size < MAX_SIGNATURES) {
+          int offset = size * BOUNDS_PER_SIGNATURE;
+          bounds[offset + SCHEME_START] = signatureStart;
+          bounds[offset + SCHEME_END] = schemeEnd;
+          bounds[offset + VALUE_END] = i;
+          size++;
+        } else {
+          ignored++;
+        }
+      }
+      signatureStart = i + 1;
+      schemeEnd = -1;
+      malformed = false;
+    }
+
+    if (ignored > 0) {
+      long suppressedWarnings = MALFORMED_SIGNATURE_LOG_RATE_LIMITER.tryAcquire();
+      if (suppressedWarnings >= 0) {
+        LOGGER.warn(
+            "Ignored {} malformed or exceeding signature(s) out of a header allowing at most {} signatures. {} similar warning(s) were suppressed.",
+            ignored,
+            MAX_SIGNATURES,
+            suppressedWarnings);
+      }
+    }
+
+    return new SignatureHeader(value, bounds, size);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** The raw header value */
+  public String value() {
+    return value;
+  }
+
+  /**
+   * @return {@link SignatureSchemeId#V1}, {@link SignatureSchemeId#V1A} or null if the scheme is
+   *     not a well-known one
+   */
+  public SignatureSchemeId knownSchemeId(int index) {
+    int offset = index * BOUNDS_PER_SIGNATURE;
+    int schemeStart = bounds[offset + SCHEME_START];
+    return switch (bounds[offset + SCHEME_END] - schemeStart) {
+      case 2 -> matches(schemeStart, SignatureSchemeId.V1) ? SignatureSchemeId.V1 : null;
+      case 3 -> matches(schemeStart, SignatureSchemeId.V1A) ? SignatureSchemeId.V1A : null;
+      default -> null;
+    };
+  }
+
+  private boolean matches(int schemeStart, SignatureSchemeId schemeId) {
+    String scheme = schemeId.value();
+    return value.regionMatches(schemeStart, scheme, 0, scheme.length());
+  }
+
+  /**
+   * @param knownSchemeId One of the well-known scheme ids as returned by {@link
+   *     #knownSchemeId(int)}
+   * @return The number of signatures having the passed scheme
+   */
+  public int count(SignatureSchemeId knownSchemeId) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (knownSchemeId(i) == knownSchemeId) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @param knownSchemeId One of the well-known scheme ids as returned by {@link
+   *     #knownSchemeId(int)}
+   * @return The decoded values of the signatures having the passed scheme. Values that cannot be
+   *     signatures of the scheme, because of their length or because they are not canonical
+   *     base64, are left out without being decoded.
+   */
+  public DecodedSignatures decode(SignatureSchemeId knownSchemeId) {
+    int encodedLength = encodedSignatureLength(knownSchemeId);
+    int signatureLength = signatureLength(knownSchemeId);
+    byte[] values = new byte[count(knownSchemeId) * signatureLength];
+    int decodedCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (knownSchemeId(i) != knownSchemeId) {
+        continue;
+      }
+      int offset = i * BOUNDS_PER_SIGNATURE;
+      int valueStart = bounds[offset + SCHEME_END] + 1;
+      int valueEnd = bounds[offset + VALUE_END];
+      if (valueEnd - valueStart != encodedLength
+          || CanonicalBase64.decodedLength(value, valueStart, valueEnd) != signatureLength) {
+        continue;
+      }
+      int decodedLength =
+          CanonicalBase64.decode(
+              value, valueStart, valueEnd, values, decodedCount * signatureLength);
+      if (decodedLength == signatureLength) {
+        decodedCount++;
+      }
+    }
+    return new DecodedSignatures(values, signatureLength, decodedCount);
+  }
+
+  private static int signatureLength(SignatureSchemeId knownSchemeId) {
+    if (knownSchemeId == SignatureSchemeId.V1) {
+      return V1_SIGNATURE_LENGTH;
+    }
+    return V1A_SIGNATURE_LENGTH;
+  }
+
+  private static int encodedSignatureLength(SignatureSchemeId knownSchemeId) {
+    if (knownSchemeId == SignatureSchemeId.V1) {
+      return V1_ENCODED_SIGNATURE_LENGTH;
+    }
+    if (knownSchemeId == SignatureSchemeId.V1A) {
+      return V1A_ENCODED_SIGNATURE_LENGTH;
+    }
+    throw new IllegalArgumentException("Unknown scheme id <%s>".formatted(knownSchemeId));
+  }
+
+  public SignatureSchemeId schemeId(int index) {
+    int offset = index * BOUNDS_PER_SIGNATURE;
+    return new SignatureSchemeId(
+        value.substring(bounds[offset + SCHEME_START], bounds[offset + SCHEME_END]));
+  }
+
+  public Signature signature(int index) {
+    int offset = index * BOUNDS_PER_SIGNATURE;
+    return new Signature(
+        value.substring(bounds[offset + SCHEME_END] + 1, bounds[offset + VALUE_END]));
+  }
+
+  public List<IdentifiedSignature> toIdentifiedSignatures() {
+    List<IdentifiedSignature> identifiedSignatures = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      identifiedSignatures.add(new IdentifiedSignature(schemeId(i), signature(i)));
+    }
+    return identifiedSignatures;
+  }
+
+  @Override
+  public String toString() {
+    return toIdentifiedSignatures().toString();
+  }
+}
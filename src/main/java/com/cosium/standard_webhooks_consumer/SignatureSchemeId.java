@@ -5,6 +5,12 @@ package com.cosium.standard_webhooks_consumer;
  */
 record SignatureSchemeId(String value) {
 
+  /** HMAC-SHA256 */
+  static final SignatureSchemeId V1 = new SignatureSchemeId("v1");
+
+  /** Ed25519 */
+  static final SignatureSchemeId V1A = new SignatureSchemeId("v1a");
+
   SignatureSchemeId {
     if (value == null || value.isBlank()) {
       throw new IllegalArgumentException("The value cannot be blank");
@@ -0,0 +1,73 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The content covered by a webhook signature is "$messageId.$timestamp.$payload". It is never
+ * materialized as a whole: the short "$messageId.$timestamp." prefix is encoded once, then the
+ * prefix and the payload bytes are fed incrementally to the cryptographic engines.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class SignedContentPrefix {
+
+  private static final byte SEPARATOR = '.';
+
+  private SignedContentPrefix() {}
+
+  public static byte[] encode(String messageId, long timestamp) {
+    int timestampLength = countDigits(timestamp) + (timestamp < 0 ? 1 : 0);
+    int messageIdLength = messageId.length();
+    byte[] prefix = new byte[messageIdLength + timestampLength + 2];
+    // Message ids are ASCII in practice. They are copied in place, without an intermediate array.
+    for (int i = 0; i < messageIdLength; i++) {
+      char c = messageId.charAt(i);
+      if (c >= 0x80) {
+        return encodeUtf8(messageId, timestamp, timestampLength);
+      }
+      prefix[i] = (byte) c;
+    }
+    writeSuffix(timestamp, prefix, messageIdLength, timestampLength);
+    return prefix;
+  }
+
+  private static byte[] encodeUtf8(String messageId, long timestamp, int timestampLength) {
+    byte[] encodedMessageId = messageId.getBytes(StandardCharsets.UTF_8);
+    byte[] prefix = new byte[encodedMessageId.length + timestampLength + 2];
+    System.arraycopy(encodedMessageId, 0, prefix, 0, encodedMessageId.length);
+    writeSuffix(timestamp, prefix, encodedMessageId.length, timestampLength);
+    return prefix;
+  }
+
+  /** Writes ".$timestamp." right after the encoded message id. */
+  private static void writeSuffix(
+      long timestamp, byte[] prefix, int messageIdLength, int timestampLength) {
+    prefix[messageIdLength] = SEPARATOR;
+    int timestampStart = messageIdLength + 1;
+    writeDigits(timestamp, prefix, timestampStart, timestampLength);
+    prefix[timestampStart + timestampLength] = SEPARATOR;
+  }
+
+  private static int countDigits(long value) {
+    int digits = 1;
+    // Compare in the negative range so that Long.MIN_VALUE does not overflow
+    long negativeValue = value < 0 ? value : -value;
+    while (negativeValue <= -10) {
+      negativeValue /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private static void writeDigits(long value, byte[] destination, int offset, int length) {
+    long negativeValue = value < 0 ? value : -value;
+    int position = offset + length - 1;
+    do {
+      destination[position--] = (byte) ('0' - (negativeValue % 10));
+      negativeValue /= 10;
+    } while (negativeValue != 0);
+    if (value < 0) {
+      destination[offset] = '-';
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A coarse-grained clock whose time is refreshed by a background tick. Reading it is a volatile
+ * read, which spares a system clock call on every verification at very high request rates.
+ *
+ * <p>Its precision is the tick interval, which should stay far below the allowed timestamp skew.
+ * It must be closed to stop its ticking thread.
+ *
+ * @author Réda Housni Alaoui
+ */
+public final class TickingClock extends Clock implements AutoCloseable {
+
+  private final Clock source;
+  private final ScheduledExecutorService ticker;
+  private volatile long millis;
+
+  private TickingClock(Clock source, ScheduledExecutorService ticker) {
+    this.source = requireNonNull(source);
+    this.ticker = requireNonNull(ticker);
+    this.millis = source.millis();
+  }
+
+  /**
+   * @param tickInterval e.g. 100 milliseconds
+   */
+  public static TickingClock start(Duration tickInterval) {
+    return start(Clock.systemUTC(), tickInterval);
+  }
+
+  /**
+   * @param source The clock read on each tick
+   * @param tickInterval e.g. 100 milliseconds
+   */
+  public static TickingClock start(Clock source, Duration tickInterval) {
+    long tickIntervalNanos = tickInterval.toNanos();
+    if (tickIntervalNanos <= 0) {
+      throw new IllegalArgumentException("tickInterval must be strictly positive");
+    }
+    ScheduledExecutorService ticker =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "webhook-ticking-clock");
+              thread.setDaemon(true);
+              return thread;
+            });
+    TickingClock clock = new TickingClock(source, ticker);
+    ticker.scheduleAtFixedRate(
+        clock::tick, tickIntervalNanos, tickIntervalNanos, TimeUnit.NANOSECONDS);
+    return clock;
+  }
+
+  private void tick() {
+    millis = source.millis();
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return source.getZone();
+  }
+
+  /**
+   * @return A view of this clock in the passed zone, ticking with it
+   */
+  @Override
+  public Clock withZone(ZoneId zone) {
+    if (zone.equals(getZone())) {
+      return this;
+    }
+    return new ZonedView(zone);
+  }
+
+  @Override
+  public long millis() {
+    return millis;
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis);
+  }
+
+  @Override
+  public void close() {
+    ticker.shutdownNow();
+  }
+
+  private final class ZonedView extends Clock {
+
+    private final ZoneId zone;
+
+    private ZonedView(ZoneId zone) {
+      this.zone = requireNonNull(zone);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return TickingClock.this.withZone(zone);
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
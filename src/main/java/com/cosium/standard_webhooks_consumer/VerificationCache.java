@@ -0,0 +1,183 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the messages that were positively verified, so that redeliveries of the same message
+ * skip the signature verification.
+ *
+ * <p>An entry is keyed by the message id, the message timestamp and the signature header value,
+ * and holds the SHA-256 digest of the verified payload. A message is only considered verified if
+ * all three header values match and the payload has the same digest. Matching the headers alone
+ * would let anyone replay a signed header with a different payload.
+ *
+ * <p>Entries are grouped in buckets partitioned by message timestamp, like {@link
+ * InMemoryReplayGuard} does. A bucket is dropped as a whole once all the timestamps it covers left
+ * the allowed skew window, so that making room never scans the entries. Once {@code maxEntries}
+ * messages are remembered and no bucket expired, new messages are not remembered.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerificationCache {
+
+  static final VerificationCache DISABLED = new VerificationCache(null, 0, 0);
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int BUCKETS_PER_SKEW = 5;
+
+  private final Clock clock;
+  private final long messageTimestampAllowedSkewSeconds;
+  private final int maxEntries;
+  private final long bucketWidthSeconds;
+  private final AtomicReferenceArray<Bucket> buckets;
+  private final EnginePool<MessageDigest> digestPool =
+      new EnginePool<>(() -> MessageDigest.getInstance(DIGEST_ALGORITHM));
+
+  VerificationCache(Clock clock, long messageTimestampAllowedSkewSeconds, int maxEntries) {
+    this.clock = clock;
+    this.messageTimestampAllowedSkewSeconds = messageTimestampAllowedSkewSeconds;
+    this.maxEntries = maxEntries;
+    bucketWidthSeconds = Math.max(1, messageTimestampAllowedSkewSeconds / BUCKETS_PER_SKEW);
+    // One more bucket absorbs the partially covered bucket at each end of the window
+    long windowSeconds = 2 * messageTimestampAllowedSkewSeconds;
+    int bucketCount = (int) ((windowSeconds + bucketWidthSeconds - 1) / bucketWidthSeconds) + 2;
+    buckets = new AtomicReferenceArray<>(bucketCount);
+  }
+
+  public boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * @param payload Its remaining bytes are digested. Its position is left untouched.
+   */
+  public byte[] digest(ByteBuffer payload) throws GeneralSecurityException {
+    MessageDigest digest = digestPool.acquire();
+    byte[] payloadDigest;
+    try {
+      digest.update(payload.duplicate());
+      payloadDigest = digest.digest();
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+    digestPool.release(digest);
+    return payloadDigest;
+  }
+
+  /**
+   * @return The key that verified the message, or null if the message is unknown
+   */
+  public VerificationKey find(
+      String messageId, long timestamp, String signatureHeader, byte[] payloadDigest) {
+    long epoch = epoch(timestamp);
+    Bucket bucket = buckets.get(slot(epoch));
+    if (bucket == null || bucket.epoch != epoch) {
+      return null;
+    }
+    Entry entry = bucket.entries.get(new Key(messageId, timestamp, signatureHeader));
+    if (entry == null || !MessageDigest.isEqual(entry.payloadDigest, payloadDigest)) {
+      return null;
+    }
+    return entry.matchingKey;
+  }
+
+  public void remember(
+      String messageId,
+      long timestamp,
+      String signatureHeader,
+      byte[] payloadDigest,
+      VerificationKey matchingKey) {
+    if (size() >= maxEntries) {
+      evictExpiredBuckets();
+      if (size() >= maxEntries) {
+        return;
+      }
+    }
+    Bucket bucket = bucket(epoch(timestamp));
+    if (bucket == null) {
+      return;
+    }
+    bucket.entries.put(
+        new Key(messageId, timestamp, signatureHeader),
+        new Entry(requireNonNull(payloadDigest), requireNonNull(matchingKey)));
+  }
+
+  private long epoch(long timestamp) {
+    return Math.floorDiv(timestamp, bucketWidthSeconds);
+  }
+
+  private int slot(long epoch) {
+    return Math.floorMod(epoch, buckets.length());
+  }
+
+  /**
+   * @return The bucket of the passed epoch, created if needed. Null if the slot is held by a more
+   *     recent epoch.
+   */
+  private Bucket bucket(long epoch) {
+    int slot = slot(epoch);
+    while (true) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null && bucket.epoch == epoch) {
+        return bucket;
+      }
+      if (bucket != null && bucket.epoch > epoch) {
+        return null;
+      }
+      Bucket newBucket = new Bucket(epoch);
+      if (buckets.compareAndSet(slot, bucket, newBucket)) {
+        return newBucket;
+      }
+    }
+  }
+
+  private void evictExpiredBuckets() {
+    long oldestAllowedTimestamp =
+        Math.floorDiv(clock.millis(), 1000) - messageTimestampAllowedSkewSeconds;
+    // A bucket is expired once its last timestamp is older than the oldest allowed one
+    long oldestLiveEpoch = epoch(oldestAllowedTimestamp);
+    for (int slot = 0; slot < buckets.length(); slot++) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null && bucket.epoch < oldestLiveEpoch) {
+        buckets.compareAndSet(slot, bucket, null);
+      }
+    }
+  }
+
+  /**
+   * @return The approximate number of remembered messages
+   */
+  public int size() {
+    int size = 0;
+    for (int slot = 0; slot < buckets.length(); slot++) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null) {
+        size += bucket.entries.size();
+      }
+    }
+    return size;
+  }
+
+  private record Key(String messageId, long timestamp, String signatureHeader) {}
+
+  private record Entry(byte[] payloadDigest, VerificationKey matchingKey) {}
+
+  private static final class Bucket {
+
+    private final long epoch;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private Bucket(long epoch) {
+      this.epoch = epoch;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.cosium.standard_webhooks_consumer;
+
+/**
+ * Why a webhook message was rejected.
+ *
+ * @author Réda Housni Alaoui
+ */
+public enum VerificationFailureReason {
+  /** The message id, timestamp or signature header is missing. */
+  MISSING_HEADER,
+  /** The message timestamp header is not a number. */
+  MALFORMED_TIMESTAMP,
+  /** The message timestamp is older than the allowed skew. */
+  TIMESTAMP_TOO_OLD,
+  /** The message timestamp is newer than the allowed skew. */
+  TIMESTAMP_TOO_NEW,
+  /** The signature header is oversized or contains no well-formed signature. */
+  MALFORMED_SIGNATURE,
+  /** No verification key supports the scheme of any signature. */
+  NO_SUPPORTING_KEY,
+  /** No signature matches the message. */
+  INVALID_SIGNATURE,
+  /** The cryptographic provider failed to verify the signatures. */
+  CRYPTOGRAPHIC_ERROR,
+  /** The replay guard already recorded the verified message. */
+  REPLAYED_MESSAGE,
+  /**
+   * The replay guard could not record the verified message, e.g. because it is full. The sender
+   * should retry later.
+   */
+  UNRECORDED_MESSAGE
+}
@@ -1,12 +1,39 @@
 package com.cosium.standard_webhooks_consumer;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author Réda Housni Alaoui
  */
 interface VerificationKey {
 
-  boolean supports(SignatureSchemeId signatureSchemeId);
+  SignatureSchemeId schemeId();
 
-  void verify(String messageId, long timestamp, String payload, Signature signatureToVerify)
+  /**
+   * Starts the verification of a content that will be fed incrementally.
+   *
+   * @see #verify(DecodedSignatures, byte[], ByteBuffer) for a content available at once
+   */
+  ContentVerification startVerification(DecodedSignatures candidates)
       throws WebhookSignatureVerificationException;
+
+  /**
+   * Verifies a content available at once.
+   *
+   * @param payload Its remaining bytes follow the prefix. Its position is left untouched.
+   * @return The index of the first candidate matching the signed content, a negative value if none
+   *     matches
+   */
+  default int verify(DecodedSignatures candidates, byte[] signedContentPrefix, ByteBuffer payload)
+      throws WebhookSignatureVerificationException {
+    ContentVerification verification = startVerification(candidates);
+    try {
+      verification.update(signedContentPrefix, 0, signedContentPrefix.length);
+      verification.update(payload.duplicate());
+      return verification.finish();
+    } catch (WebhookSignatureVerificationException | RuntimeException e) {
+      verification.abort();
+      throw e;
+    }
+  }
 }
@@ -8,4 +8,13 @@ import java.util.Optional;
 interface VerificationKeyParser {
 
   Optional<? extends VerificationKey> parse(String serializedVerificationKey);
+
+  /**
+   * @return The serialized key with its second half masked, to be used in error messages
+   */
+  static String conceal(String serializedVerificationKey) {
+    int halfLength = Math.round(serializedVerificationKey.length() / 2f);
+    return serializedVerificationKey.substring(0, halfLength)
+        + "*".repeat(serializedVerificationKey.length() - halfLength);
+  }
 }
@@ -0,0 +1,19 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.util.List;
+
+/**
+ * Provides the verification keys of each tenant of a {@link WebhookSignatureVerifierRegistry}.
+ *
+ * @author Réda Housni Alaoui
+ */
+@FunctionalInterface
+public interface VerificationKeySource {
+
+  /**
+   * @return The serialized verification keys of the tenant, e.g.
+   *     "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=". An empty list means that the tenant is
+   *     unknown.
+   */
+  List<String> serializedVerificationKeys(String tenantId);
+}
@@ -0,0 +1,138 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable snapshot of verification keys, indexed by the signature scheme they support.
+ * Rotations derive new snapshots, keeping the already parsed keys.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerificationKeys {
+
+  static final VerificationKeys EMPTY = new VerificationKeys(List.of());
+
+  private static final long NEVER = Long.MAX_VALUE;
+
+  private final List<Entry> entries;
+  private final List<VerificationKey> keys;
+  private final List<VerificationKey> v1Keys;
+  private final List<VerificationKey> v1aKeys;
+  private final long nextExpiryMillis;
+
+  private VerificationKeys(List<Entry> entries) {
+    this.entries = List.copyOf(entries);
+    keys = this.entries.stream().map(Entry::key).toList();
+    v1Keys = keysOf(keys, SignatureSchemeId.V1);
+    v1aKeys = keysOf(keys, SignatureSchemeId.V1A);
+    nextExpiryMillis =
+        this.entries.stream().mapToLong(Entry::expiresAtMillis).min().orElse(NEVER);
+  }
+
+  private static List<VerificationKey> keysOf(
+      List<VerificationKey> keys, SignatureSchemeId schemeId) {
+    return keys.stream().filter(key -> schemeId.equals(key.schemeId())).toList();
+  }
+
+  /**
+   * @param knownSchemeId One of the well-known scheme ids as returned by {@link
+   *     SignatureHeader#knownSchemeId(int)}
+   */
+  public List<VerificationKey> supporting(SignatureSchemeId knownSchemeId) {
+    if (knownSchemeId == SignatureSchemeId.V1) {
+      return v1Keys;
+    }
+    if (knownSchemeId == SignatureSchemeId.V1A) {
+      return v1aKeys;
+    }
+    return List.of();
+  }
+
+  /**
+   * @return The position of the key in this snapshot
+   */
+  public int indexOf(VerificationKey key) {
+    for (int i = 0; i < keys.size(); i++) {
+      if (keys.get(i) == key) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The label given to the key at the passed position, or null
+   */
+  public String labelAt(int index) {
+    return entries.get(index).label;
+  }
+
+  /**
+   * @return The earliest time at which a retired key expires, {@link Long#MAX_VALUE} if none
+   */
+  public long nextExpiryMillis() {
+    return nextExpiryMillis;
+  }
+
+  /**
+   * @param label The label of the key, or null. Adding a key again with a null label keeps its
+   *     current label.
+   * @return A snapshot containing the key. Adding a retired key again cancels its expiry.
+   */
+  public VerificationKeys withKey(String serializedKey, VerificationKey key, String label) {
+    requireNonNull(serializedKey);
+    requireNonNull(key);
+    List<Entry> newEntries = new ArrayList<>(entries.size() + 1);
+    boolean present = false;
+    for (Entry entry : entries) {
+      if (entry.serializedKey.equals(serializedKey)) {
+        present = true;
+        newEntries.add(
+            new Entry(
+                entry.serializedKey, entry.key, label == null ? entry.label : label, NEVER));
+      } else {
+        newEntries.add(entry);
+      }
+    }
+    if (!present) {
+      newEntries.add(new Entry(serializedKey, key, label, NEVER));
+    }
+    return new VerificationKeys(newEntries);
+  }
+
+  /**
+   * @param expiresAtMillis The time from which the key stops being used
+   * @return A snapshot in which the key expires at the given time, unless it expires earlier
+   */
+  public VerificationKeys withKeyExpiringAt(String serializedKey, long expiresAtMillis) {
+    requireNonNull(serializedKey);
+    List<Entry> newEntries = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      if (entry.serializedKey.equals(serializedKey)) {
+        newEntries.add(
+            new Entry(
+                entry.serializedKey,
+                entry.key,
+                entry.label,
+                Math.min(entry.expiresAtMillis, expiresAtMillis)));
+      } else {
+        newEntries.add(entry);
+      }
+    }
+    return new VerificationKeys(newEntries);
+  }
+
+  public VerificationKeys withoutExpiredKeys(long nowMillis) {
+    if (nowMillis < nextExpiryMillis) {
+      return this;
+    }
+    return new VerificationKeys(
+        entries.stream().filter(entry -> nowMillis < entry.expiresAtMillis).toList());
+  }
+
+  private record Entry(
+      String serializedKey, VerificationKey key, String label, long expiresAtMillis) {}
+}
@@ -0,0 +1,32 @@
+package com.cosium.standard_webhooks_consumer;
+
+/**
+ * Receives the outcome of each verification, e.g. to feed latency histograms and outcome counters
+ * of any metrics library.
+ *
+ * <p>Callbacks run synchronously on the verifying thread and only receive primitives and constants,
+ * so that reporting does not allocate. Implementations must be thread-safe and fast.
+ *
+ * @author Réda Housni Alaoui
+ */
+public interface VerificationListener {
+
+  /**
+   * @param signatureSchemeId The scheme of the matching signature, e.g. "v1" or "v1a"
+   * @param keyIndex The index of the matching key among the keys of the verifier, in the order
+   *     they were added
+   * @param headerParsingNanos Time spent reading the headers and decoding the signatures
+   * @param timestampCheckNanos Time spent checking the message timestamp
+   * @param cryptoNanos Time spent computing and comparing signatures. For streaming verifications,
+   *     only the time spent in the verification itself is counted, not the time spent reading the
+   *     payload.
+   */
+  default void onVerified(
+      String signatureSchemeId,
+      int keyIndex,
+      long headerParsingNanos,
+      long timestampCheckNanos,
+      long cryptoNanos) {}
+
+  default void onRejected(VerificationFailureReason reason) {}
+}
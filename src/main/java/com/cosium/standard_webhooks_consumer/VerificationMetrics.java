@@ -0,0 +1,56 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reports to a {@link VerificationListener}, without reading the clock when nobody listens.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerificationMetrics {
+
+  static final VerificationMetrics DISABLED =
+      new VerificationMetrics(new VerificationListener() {}, false);
+
+  private final VerificationListener listener;
+  private final boolean enabled;
+
+  private VerificationMetrics(VerificationListener listener, boolean enabled) {
+    this.listener = requireNonNull(listener);
+    this.enabled = enabled;
+  }
+
+  static VerificationMetrics reportingTo(VerificationListener listener) {
+    return new VerificationMetrics(listener, true);
+  }
+
+  /**
+   * @return The current {@link System#nanoTime()}, or 0 if nobody listens
+   */
+  public long nanoTime() {
+    if (!enabled) {
+      return 0;
+    }
+    return System.nanoTime();
+  }
+
+  public void verified(
+      SignatureSchemeId schemeId,
+      int keyIndex,
+      long headerParsingNanos,
+      long timestampCheckNanos,
+      long cryptoNanos) {
+    if (!enabled) {
+      return;
+    }
+    listener.onVerified(
+        schemeId.value(), keyIndex, headerParsingNanos, timestampCheckNanos, cryptoNanos);
+  }
+
+  public void rejected(WebhookSignatureVerificationException exception) {
+    if (!enabled) {
+      return;
+    }
+    listener.onRejected(exception.reason());
+  }
+}
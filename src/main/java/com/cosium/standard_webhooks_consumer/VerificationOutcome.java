@@ -0,0 +1,56 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+
+/**
+ * The outcome of a verification that reports failures instead of throwing them.
+ *
+ * @author Réda Housni Alaoui
+ */
+public final class VerificationOutcome {
+
+  private final VerifiedMessage verifiedMessage;
+  private final WebhookSignatureVerificationException failure;
+
+  private VerificationOutcome(
+      VerifiedMessage verifiedMessage, WebhookSignatureVerificationException failure) {
+    this.verifiedMessage = verifiedMessage;
+    this.failure = failure;
+  }
+
+  static VerificationOutcome verified(VerifiedMessage verifiedMessage) {
+    return new VerificationOutcome(requireNonNull(verifiedMessage), null);
+  }
+
+  static VerificationOutcome failed(WebhookSignatureVerificationException failure) {
+    return new VerificationOutcome(null, requireNonNull(failure));
+  }
+
+  public boolean isVerified() {
+    return failure == null;
+  }
+
+  /**
+   * @return The verified message, or an empty optional if the message could not be verified
+   */
+  public Optional<VerifiedMessage> verifiedMessage() {
+    return Optional.ofNullable(verifiedMessage);
+  }
+
+  /**
+   * @return The reason of the failure, or an empty optional if the message was verified
+   */
+  public Optional<WebhookSignatureVerificationException> failure() {
+    return Optional.ofNullable(failure);
+  }
+
+  @Override
+  public String toString() {
+    if (failure == null) {
+      return "VerificationOutcome{verifiedMessage=" + verifiedMessage + "}";
+    }
+    return "VerificationOutcome{failure=" + failure + "}";
+  }
+}
@@ -0,0 +1,74 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+
+/**
+ * A message whose signature was verified, with what the verification learned about it. Downstream
+ * deduplication or routing stages can rely on it instead of parsing the headers again.
+ *
+ * @author Réda Housni Alaoui
+ */
+public final class VerifiedMessage {
+
+  private final String messageId;
+  private final long timestamp;
+  private final String signatureSchemeId;
+  private final int keyIndex;
+  private final String keyLabel;
+
+  VerifiedMessage(
+      String messageId, long timestamp, String signatureSchemeId, int keyIndex, String keyLabel) {
+    this.messageId = requireNonNull(messageId);
+    this.timestamp = timestamp;
+    this.signatureSchemeId = requireNonNull(signatureSchemeId);
+    this.keyIndex = keyIndex;
+    this.keyLabel = keyLabel;
+  }
+
+  /** The value of the webhook-id header */
+  public String messageId() {
+    return messageId;
+  }
+
+  /** The value of the webhook-timestamp header, in seconds */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  /** The scheme of the matching signature, e.g. "v1" or "v1a" */
+  public String signatureSchemeId() {
+    return signatureSchemeId;
+  }
+
+  /**
+   * @return The position of the matching key among the keys of the verifier at verification time
+   */
+  public int keyIndex() {
+    return keyIndex;
+  }
+
+  /**
+   * @return The label given to the matching key when it was added, if any
+   */
+  public Optional<String> keyLabel() {
+    return Optional.ofNullable(keyLabel);
+  }
+
+  @Override
+  public String toString() {
+    return "VerifiedMessage{"
+        + "messageId='"
+        + messageId
+        + "', timestamp="
+        + timestamp
+        + ", signatureSchemeId='"
+        + signatureSchemeId
+        + "', keyIndex="
+        + keyIndex
+        + ", keyLabel="
+        + keyLabel
+        + '}';
+  }
+}
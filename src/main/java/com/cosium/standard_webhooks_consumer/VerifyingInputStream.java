@@ -0,0 +1,85 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Feeds the bytes read by the application to the signature verification. Reaching the end of the
+ * stream concludes the verification.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerifyingInputStream extends FilterInputStream {
+
+  private static final int SKIP_BUFFER_SIZE = 8192;
+
+  private final PayloadVerification verification;
+  private final byte[] singleByte = new byte[1];
+  private byte[] skipBuffer;
+
+  VerifyingInputStream(InputStream payload, PayloadVerification verification) {
+    super(requireNonNull(payload));
+    this.verification = requireNonNull(verification);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int count = read(singleByte, 0, 1);
+    return count < 0 ? -1 : Byte.toUnsignedInt(singleByte[0]);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int count = super.read(b, off, len);
+    if (count < 0) {
+      verification.finish();
+    } else {
+      verification.update(b, off, count);
+    }
+    return count;
+  }
+
+  /** Skipped bytes still have to be verified, so they are read through a reusable buffer. */
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    if (skipBuffer == null) {
+      skipBuffer = new byte[SKIP_BUFFER_SIZE];
+    }
+    long remaining = n;
+    while (remaining > 0) {
+      int count = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, remaining));
+      if (count < 0) {
+        break;
+      }
+      remaining -= count;
+    }
+    return n - remaining;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+    // Not supported
+  }
+
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  @Override
+  public void close() throws IOException {
+    verification.abort();
+    super.close();
+  }
+}
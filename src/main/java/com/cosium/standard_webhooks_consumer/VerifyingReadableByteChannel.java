@@ -0,0 +1,63 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Feeds the bytes read by the application to the signature verification. Reaching the end of the
+ * channel concludes the verification.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerifyingReadableByteChannel implements ReadableByteChannel {
+
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final ReadableByteChannel payload;
+  private final PayloadVerification verification;
+  private byte[] copyBuffer;
+
+  VerifyingReadableByteChannel(ReadableByteChannel payload, PayloadVerification verification) {
+    this.payload = requireNonNull(payload);
+    this.verification = requireNonNull(verification);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    int start = dst.position();
+    int count = payload.read(dst);
+    if (count < 0) {
+      verification.finish();
+      return count;
+    }
+    if (dst.hasArray()) {
+      verification.update(dst.array(), dst.arrayOffset() + start, count);
+      return count;
+    }
+    // Direct buffers are copied through a reusable heap buffer
+    if (copyBuffer == null) {
+      copyBuffer = new byte[COPY_BUFFER_SIZE];
+    }
+    for (int copied = 0; copied < count; ) {
+      int length = Math.min(copyBuffer.length, count - copied);
+      dst.get(start + copied, copyBuffer, 0, length);
+      verification.update(copyBuffer, 0, length);
+      copied += length;
+    }
+    return count;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return payload.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    verification.abort();
+    payload.close();
+  }
+}
@@ -0,0 +1,146 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feeds the chunks of a published payload to a {@link MessageVerification.Incremental} on an
+ * executor.
+ *
+ * <p>Signals are queued and drained one at a time on the executor, so that the verification is
+ * never used concurrently. Chunks are requested one by one, each once the previous one was fed,
+ * which lets the verification of a chunk overlap with the reception of the next one.
+ *
+ * @author Réda Housni Alaoui
+ */
+final class VerifyingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+  private final MessageVerification.Incremental verification;
+  private final VerificationMetrics metrics;
+  private final Executor executor;
+  private final CompletableFuture<VerifiedMessage> result;
+  private final Queue<Runnable> signals = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingSignals = new AtomicInteger();
+
+  // Only accessed while draining the signals
+  private Flow.Subscription subscription;
+  private boolean done;
+  private RejectedExecutionException rejection;
+
+  VerifyingSubscriber(
+      MessageVerification.Incremental verification,
+      VerificationMetrics metrics,
+      Executor executor,
+      CompletableFuture<VerifiedMessage> result) {
+    this.verification = requireNonNull(verification);
+    this.metrics = requireNonNull(metrics);
+    this.executor = requireNonNull(executor);
+    this.result = requireNonNull(result);
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    requireNonNull(subscription);
+    signal(
+        () -> {
+          if (this.subscription != null) {
+            subscription.cancel();
+            return;
+          }
+          this.subscription = subscription;
+          subscription.request(1);
+        });
+  }
+
+  @Override
+  public void onNext(ByteBuffer chunk) {
+    requireNonNull(chunk);
+    signal(
+        () -> {
+          try {
+            verification.update(chunk);
+          } catch (WebhookSignatureVerificationException e) {
+            metrics.rejected(e);
+            terminate(e);
+            return;
+          }
+          subscription.request(1);
+        });
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    requireNonNull(throwable);
+    signal(() -> terminate(throwable));
+  }
+
+  @Override
+  public void onComplete() {
+    signal(
+        () -> {
+          done = true;
+          VerifiedMessage verifiedMessage;
+          try {
+            verifiedMessage = verification.finish();
+          } catch (WebhookSignatureVerificationException e) {
+            metrics.rejected(e);
+            result.completeExceptionally(e);
+            return;
+          }
+          result.complete(verifiedMessage);
+        });
+  }
+
+  /** Stops the verification and the subscription, completing the result with the failure. */
+  private void terminate(Throwable failure) {
+    done = true;
+    verification.abort();
+    if (subscription != null) {
+      subscription.cancel();
+    }
+    result.completeExceptionally(failure);
+  }
+
+  private void signal(Runnable signal) {
+    signals.add(signal);
+    if (pendingSignals.getAndIncrement() != 0) {
+      // Already being drained
+      return;
+    }
+    try {
+      executor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      rejection = e;
+      drain();
+    }
+  }
+
+  private void drain() {
+    do {
+      Runnable signal = signals.poll();
+      if (!done && rejection != null) {
+        terminate(rejection);
+      }
+      if (!done && result.isDone()) {
+        // The caller cancelled the verification
+        terminate(new IllegalStateException("The verification was cancelled"));
+      }
+      if (done) {
+        continue;
+      }
+      try {
+        signal.run();
+      } catch (RuntimeException e) {
+        terminate(e);
+      }
+    } while (pendingSignals.decrementAndGet() != 0);
+  }
+}
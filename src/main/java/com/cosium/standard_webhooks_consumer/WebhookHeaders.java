@@ -0,0 +1,47 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * Gives access to the headers of a webhook request, straight from the storage of the HTTP stack in
+ * use, e.g. {@code servletRequest::getHeader}.
+ *
+ * @author Réda Housni Alaoui
+ */
+@FunctionalInterface
+public interface WebhookHeaders {
+
+  String MESSAGE_ID_HEADER_NAME = "webhook-id";
+  String MESSAGE_TIMESTAMP_HEADER_NAME = "webhook-timestamp";
+  String SIGNATURE_HEADER_NAME = "webhook-signature";
+
+  static WebhookHeaders of(HttpHeaders headers) {
+    requireNonNull(headers);
+    return name -> headers.firstValue(name).orElse(null);
+  }
+
+  /**
+   * @param messageId The value of the "webhook-id" header
+   * @param messageTimestamp The value of the "webhook-timestamp" header
+   * @param signature The value of the "webhook-signature" header
+   */
+  static WebhookHeaders of(String messageId, String messageTimestamp, String signature) {
+    return name ->
+        switch (name) {
+          case MESSAGE_ID_HEADER_NAME -> messageId;
+          case MESSAGE_TIMESTAMP_HEADER_NAME -> messageTimestamp;
+          case SIGNATURE_HEADER_NAME -> signature;
+          default -> null;
+        };
+  }
+
+  /**
+   * @param name The lower case name of the header, one of {@link #MESSAGE_ID_HEADER_NAME}, {@link
+   *     #MESSAGE_TIMESTAMP_HEADER_NAME} or {@link #SIGNATURE_HEADER_NAME}. Header names being case
+   *     insensitive, the lookup should ignore case.
+   * @return The first value of the header, or null if there is none
+   */
+  String firstValue(String name);
+}
@@ -0,0 +1,31 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A received webhook message.
+ *
+ * @param headers See {@link WebhookHeaders#of(java.net.http.HttpHeaders)} to adapt {@link
+ *     java.net.http.HttpHeaders}
+ * @param payload Its remaining bytes are the payload. Its position is left untouched by
+ *     verifications.
+ * @author Réda Housni Alaoui
+ */
+public record WebhookRequest(WebhookHeaders headers, ByteBuffer payload) {
+
+  public WebhookRequest {
+    requireNonNull(headers);
+    requireNonNull(payload);
+  }
+
+  public WebhookRequest(WebhookHeaders headers, byte[] payload) {
+    this(headers, ByteBuffer.wrap(payload));
+  }
+
+  public WebhookRequest(WebhookHeaders headers, String payload) {
+    this(headers, payload.getBytes(StandardCharsets.UTF_8));
+  }
+}
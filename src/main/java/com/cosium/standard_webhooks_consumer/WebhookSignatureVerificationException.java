@@ -1,15 +1,104 @@
 package com.cosium.standard_webhooks_consumer;
 
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
 /**
  * @author Réda Housni Alaoui
  */
 public final class WebhookSignatureVerificationException extends Exception {
 
-  WebhookSignatureVerificationException(Throwable cause) {
+  private final VerificationFailureReason reason;
+  private final VerificationFailureReason[] attemptFailureReasons;
+  private final transient Object[] messageArguments;
+  private volatile String formattedMessage;
+
+  WebhookSignatureVerificationException(VerificationFailureReason reason, Throwable cause) {
     super(cause);
+    this.reason = requireNonNull(reason);
+    this.attemptFailureReasons = new VerificationFailureReason[0];
+    this.messageArguments = null;
+  }
+
+  WebhookSignatureVerificationException(VerificationFailureReason reason, String message) {
+    this(reason, List.of(), message);
   }
 
-  WebhookSignatureVerificationException(String message) {
+  WebhookSignatureVerificationException(
+      VerificationFailureReason reason,
+      List<VerificationFailureReason> attemptFailureReasons,
+      String message) {
     super(message);
+    this.reason = requireNonNull(reason);
+    this.attemptFailureReasons = attemptFailureReasons.toArray(VerificationFailureReason[]::new);
+    this.messageArguments = null;
+  }
+
+  private WebhookSignatureVerificationException(
+      VerificationFailureReason reason,
+      List<VerificationFailureReason> attemptFailureReasons,
+      String messageFormat,
+      Object[] messageArguments) {
+    super(messageFormat, null, false, false);
+    this.reason = requireNonNull(reason);
+    this.attemptFailureReasons = attemptFailureReasons.toArray(VerificationFailureReason[]::new);
+    this.messageArguments = requireNonNull(messageArguments);
+  }
+
+  /**
+   * Creates a rejection that costs next to nothing to throw: it has no stack trace, and its message
+   * is only formatted when read. Meant for requests rejected before any cryptographic work, which
+   * can be flooded by anyone.
+   */
+  static WebhookSignatureVerificationException rejection(
+      VerificationFailureReason reason, String messageFormat, Object... messageArguments) {
+    return rejection(reason, List.of(), messageFormat, messageArguments);
+  }
+
+  /**
+   * @param attemptFailureReasons The reason each verification key failed to verify the message
+   */
+  static WebhookSignatureVerificationException rejection(
+      VerificationFailureReason reason,
+      List<VerificationFailureReason> attemptFailureReasons,
+      String messageFormat,
+      Object... messageArguments) {
+    return new WebhookSignatureVerificationException(
+        reason, attemptFailureReasons, messageFormat, messageArguments);
+  }
+
+  public VerificationFailureReason reason() {
+    return reason;
+  }
+
+  /**
+   * @return The reason each verification key failed to verify the message, in the order the keys
+   *     were tried. Empty if the message was rejected before any key was tried.
+   */
+  public List<VerificationFailureReason> attemptFailureReasons() {
+    return List.of(attemptFailureReasons);
+  }
+
+  @Override
+  public String getMessage() {
+    String message = formattedMessage;
+    if (message != null) {
+      return message;
+    }
+    if (messageArguments == null) {
+      return super.getMessage();
+    }
+    message = super.getMessage().formatted(messageArguments);
+    formattedMessage = message;
+    return message;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    // The message arguments are not serialized
+    getMessage();
+    out.defaultWriteObject();
   }
 }
@@ -2,137 +2,537 @@ package com.cosium.standard_webhooks_consumer;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Réda Housni Alaoui
  */
 public class WebhookSignatureVerifier {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(WebhookSignatureVerifier.class);
-
-  private static final CompositeVerificationKeyParser VERIFICATION_KEY_PARSER =
-      new CompositeVerificationKeyParser(SecretKey::parseKey, PublicKey::parseKey);
-
-  private static final String MESSAGE_ID_HEADER_NAME = "webhook-id";
-  private static final String MESSAGE_TIMESTAMP_HEADER_NAME = "webhook-timestamp";
-
   private static final Duration DEFAULT_MESSAGE_TIMESTAMP_ALLOWED_SKEW = Duration.ofMinutes(5);
+  private static final long MILLIS_PER_SECOND = 1000;
+  private static final ReplayGuard NO_REPLAY_GUARD =
+      (messageId, messageTimestamp) -> ReplayGuard.Result.RECORDED;
 
-  private final List<VerificationKey> verificationKeys;
+  private static final String WARM_UP_MESSAGE_ID = "msg_warm_up";
+  private static final String WARM_UP_SIGNATURE_HEADER =
+      "v1," + "A".repeat(43) + "= v1a," + "A".repeat(86) + "==";
+  private static final byte[] WARM_UP_PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+  private final CompositeVerificationKeyParser verificationKeyParser;
+  private final AtomicReference<VerificationKeys> verificationKeys;
   private final Clock clock;
-  private final Duration messageTimestampAllowedSkew;
+  private final long messageTimestampAllowedSkewSeconds;
+  private final ReplayGuard replayGuard;
+  private final VerificationMetrics metrics;
+  private final Executor batchExecutor;
+  private final boolean lightweightExceptions;
+  private final VerificationCache verificationCache;
 
   private WebhookSignatureVerifier(Builder builder) {
+    CryptoBackend cryptoBackend = builder.cryptoBackend;
+    verificationKeyParser =
+        new CompositeVerificationKeyParser(
+            serializedKey -> SecretKey.parseKey(serializedKey, cryptoBackend),
+            serializedKey -> PublicKey.parseKey(serializedKey, cryptoBackend));
 
-    verificationKeys =
-        builder.serializedVerificationKeys.stream().map(VERIFICATION_KEY_PARSER::parse).toList();
+    VerificationKeys initialVerificationKeys = VerificationKeys.EMPTY;
+    for (LabeledKey labeledKey : builder.verificationKeys) {
+      initialVerificationKeys =
+          initialVerificationKeys.withKey(
+              labeledKey.serializedKey(),
+              verificationKeyParser.parse(labeledKey.serializedKey()),
+              labeledKey.label());
+    }
+    verificationKeys = new AtomicReference<>(initialVerificationKeys);
     clock = builder.clock;
-    messageTimestampAllowedSkew = builder.messageTimestampAllowedSkew;
+    messageTimestampAllowedSkewSeconds = builder.messageTimestampAllowedSkew.toSeconds();
+    replayGuard = builder.replayGuard;
+    metrics = builder.metrics;
+    batchExecutor = builder.batchExecutor;
+    lightweightExceptions = builder.lightweightExceptions;
+    verificationCache =
+        builder.verificationCacheMaxEntries == 0
+            ? VerificationCache.DISABLED
+            : new VerificationCache(
+                clock, messageTimestampAllowedSkewSeconds, builder.verificationCacheMaxEntries);
+    if (builder.warmUpOnBuild) {
+      warmUp();
+    }
   }
 
   /**
    * @param serializedVerificationKey e.g. "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4="
    */
   public static Builder builder(String serializedVerificationKey) {
-    return new Builder(serializedVerificationKey);
+    return new Builder(serializedVerificationKey, null);
+  }
+
+  /**
+   * @param serializedVerificationKey e.g. "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4="
+   * @param label See {@link #addKey(String, String)}
+   */
+  public static Builder builder(String serializedVerificationKey, String label) {
+    return new Builder(serializedVerificationKey, label);
+  }
+
+  /**
+   * Starts accepting signatures made with the key, in addition to the current keys. Verifications
+   * already in progress keep the keys they started with.
+   *
+   * @param serializedVerificationKey e.g. "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4="
+   */
+  public void addKey(String serializedVerificationKey) {
+    addKey(serializedVerificationKey, null);
+  }
+
+  /**
+   * See {@link #addKey(String)}.
+   *
+   * @param label Reported by {@link VerifiedMessage#keyLabel()} when the key matches, e.g. to tell
+   *     an old key from a new one. May be null.
+   */
+  public void addKey(String serializedVerificationKey, String label) {
+    VerificationKey key = verificationKeyParser.parse(requireNonNull(serializedVerificationKey));
+    verificationKeys.updateAndGet(keys -> keys.withKey(serializedVerificationKey, key, label));
+  }
+
+  /** Stops accepting signatures made with the key. Unknown keys are ignored. */
+  public void retireKey(String serializedVerificationKey) {
+    retireKey(serializedVerificationKey, Duration.ZERO);
+  }
+
+  /**
+   * Keeps accepting signatures made with the key during the grace period, e.g. while senders
+   * switch to a new key, then stops. Unknown keys are ignored.
+   */
+  public void retireKey(String serializedVerificationKey, Duration gracePeriod) {
+    requireNonNull(serializedVerificationKey);
+    if (gracePeriod.isNegative()) {
+      throw new IllegalArgumentException("gracePeriod cannot be negative");
+    }
+    long nowMillis = clock.millis();
+    long expiresAtMillis = nowMillis + gracePeriod.toMillis();
+    verificationKeys.updateAndGet(
+        keys ->
+            keys.withKeyExpiringAt(serializedVerificationKey, expiresAtMillis)
+                .withoutExpiredKeys(nowMillis));
   }
 
-  public void verify(HttpHeaders headers, String payload)
+  public VerifiedMessage verify(HttpHeaders headers, String payload)
       throws WebhookSignatureVerificationException {
+    return verify(WebhookHeaders.of(headers), payload);
+  }
 
-    String messageId = headers.firstValue(MESSAGE_ID_HEADER_NAME).orElse(null);
-    if (messageId == null || messageId.isBlank()) {
-      throw new WebhookSignatureVerificationException(
-          "No value found for header <%s>".formatted(MESSAGE_ID_HEADER_NAME));
+  public VerifiedMessage verify(WebhookHeaders headers, String payload)
+      throws WebhookSignatureVerificationException {
+    return verify(headers, payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public VerifiedMessage verify(HttpHeaders headers, byte[] payload)
+      throws WebhookSignatureVerificationException {
+    return verify(WebhookHeaders.of(headers), payload);
+  }
+
+  public VerifiedMessage verify(WebhookHeaders headers, byte[] payload)
+      throws WebhookSignatureVerificationException {
+    return verify(headers, ByteBuffer.wrap(payload));
+  }
+
+  /**
+   * @param payload The remaining bytes of this buffer are verified. The buffer position is left
+   *     untouched.
+   */
+  public VerifiedMessage verify(HttpHeaders headers, ByteBuffer payload)
+      throws WebhookSignatureVerificationException {
+    return verify(WebhookHeaders.of(headers), payload);
+  }
+
+  /**
+   * @param payload The remaining bytes of this buffer are verified. The buffer position is left
+   *     untouched.
+   * @return The verified message, carrying the matching key
+   */
+  public VerifiedMessage verify(WebhookHeaders headers, ByteBuffer payload)
+      throws WebhookSignatureVerificationException {
+    requireNonNull(payload);
+    try {
+      return prepare(headers).verify(payload, lightweightExceptions);
+    } catch (WebhookSignatureVerificationException e) {
+      metrics.rejected(e);
+      throw e;
     }
+  }
 
-    String messageTimestampAsString =
-        headers.firstValue(MESSAGE_TIMESTAMP_HEADER_NAME).orElse(null);
-    if (messageTimestampAsString == null || messageTimestampAsString.isBlank()) {
-      throw new WebhookSignatureVerificationException(
-          "No value found for header <%s>".formatted(MESSAGE_TIMESTAMP_HEADER_NAME));
-    }
-
-    long timestamp = verifyTimestamp(messageTimestampAsString);
-
-    List<WebhookSignatureVerificationException> verificationExceptions = new ArrayList<>();
-
-    List<IdentifiedSignature> signatures = IdentifiedSignature.parseAtLeastOne(headers);
-    for (IdentifiedSignature signature : signatures) {
-      for (VerificationKey verificationKey : verificationKeys) {
-        SignatureSchemeId signatureSchemeId = signature.schemeId();
-        if (!verificationKey.supports(signatureSchemeId)) {
-          LOGGER.debug("{} does not support {}", verificationKey, signatureSchemeId);
-          continue;
-        }
-        try {
-          verificationKey.verify(messageId, timestamp, payload, signature.content());
-        } catch (WebhookSignatureVerificationException e) {
-          verificationExceptions.add(e);
-          continue;
-        }
-        return;
+  public VerificationOutcome tryVerify(HttpHeaders headers, String payload) {
+    return tryVerify(WebhookHeaders.of(headers), payload);
+  }
+
+  public VerificationOutcome tryVerify(WebhookHeaders headers, String payload) {
+    return tryVerify(headers, payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public VerificationOutcome tryVerify(HttpHeaders headers, byte[] payload) {
+    return tryVerify(WebhookHeaders.of(headers), payload);
+  }
+
+  public VerificationOutcome tryVerify(WebhookHeaders headers, byte[] payload) {
+    return tryVerify(headers, ByteBuffer.wrap(payload));
+  }
+
+  public VerificationOutcome tryVerify(HttpHeaders headers, ByteBuffer payload) {
+    return tryVerify(WebhookHeaders.of(headers), payload);
+  }
+
+  /**
+   * Verifies the message without throwing. Failures are always lightweight: they carry no stack
+   * trace, and only the reason of each failed attempt.
+   *
+   * @param payload The remaining bytes of this buffer are verified. The buffer position is left
+   *     untouched.
+   */
+  public VerificationOutcome tryVerify(WebhookHeaders headers, ByteBuffer payload) {
+    requireNonNull(payload);
+    try {
+      return VerificationOutcome.verified(prepare(headers).verify(payload, true));
+    } catch (WebhookSignatureVerificationException e) {
+      metrics.rejected(e);
+      return VerificationOutcome.failed(e);
+    }
+  }
+
+  /**
+   * See {@link #verifyAsync(WebhookHeaders, ByteBuffer, Executor)}.
+   */
+  public CompletionStage<VerifiedMessage> verifyAsync(
+      HttpHeaders headers, ByteBuffer payload, Executor executor) {
+    return verifyAsync(WebhookHeaders.of(headers), payload, executor);
+  }
+
+  /**
+   * Verifies the message on the executor, e.g. to keep event loop threads free from cryptographic
+   * work.
+   *
+   * @return A stage completed with the verified message, or exceptionally with a {@link
+   *     WebhookSignatureVerificationException} if the message could not be verified
+   */
+  public CompletionStage<VerifiedMessage> verifyAsync(
+      WebhookHeaders headers, ByteBuffer payload, Executor executor) {
+    requireNonNull(headers);
+    requireNonNull(payload);
+    requireNonNull(executor);
+    CompletableFuture<VerifiedMessage> result = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            VerifiedMessage verifiedMessage;
+            try {
+              verifiedMessage = verify(headers, payload);
+            } catch (WebhookSignatureVerificationException | RuntimeException e) {
+              result.completeExceptionally(e);
+              return;
+            }
+            result.complete(verifiedMessage);
+          });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * See {@link #verifyAsync(WebhookHeaders, Flow.Publisher, Executor)}.
+   */
+  public CompletionStage<VerifiedMessage> verifyAsync(
+      HttpHeaders headers, Flow.Publisher<ByteBuffer> payload, Executor executor) {
+    return verifyAsync(WebhookHeaders.of(headers), payload, executor);
+  }
+
+  /**
+   * Verifies the payload chunk by chunk as the publisher emits it, so that the verification
+   * overlaps with the reception of the payload. The headers are verified immediately, and the
+   * chunks are fed to the verification on the executor.
+   *
+   * <p>Chunks are requested one at a time and must not be modified once published. Consuming the
+   * payload is left to another subscriber of the publisher.
+   *
+   * @return A stage completed with the verified message, or exceptionally with a {@link
+   *     WebhookSignatureVerificationException} if the message could not be verified, or with the
+   *     error of the publisher
+   */
+  public CompletionStage<VerifiedMessage> verifyAsync(
+      WebhookHeaders headers, Flow.Publisher<ByteBuffer> payload, Executor executor) {
+    requireNonNull(payload);
+    requireNonNull(executor);
+    CompletableFuture<VerifiedMessage> result = new CompletableFuture<>();
+    MessageVerification.Incremental verification;
+    try {
+      verification = prepare(headers).startIncremental(lightweightExceptions);
+    } catch (WebhookSignatureVerificationException e) {
+      metrics.rejected(e);
+      result.completeExceptionally(e);
+      return result;
+    }
+    payload.subscribe(new VerifyingSubscriber(verification, metrics, executor, result));
+    return result;
+  }
+
+  /**
+   * Verifies each request, spreading them across the batch executor. Each worker verifies a
+   * contiguous slice of the requests, reusing the same engines from one request to the next.
+   *
+   * @return The outcome of each request, in the order of the requests
+   */
+  public List<VerificationOutcome> verifyAll(List<WebhookRequest> requests) {
+    VerificationOutcome[] outcomes = new VerificationOutcome[requests.size()];
+    int sliceCount = Math.min(requests.size(), Runtime.getRuntime().availableProcessors());
+    if (sliceCount <= 1) {
+      verifySlice(requests, outcomes, 0, outcomes.length);
+      return Arrays.asList(outcomes);
+    }
+
+    CompletableFuture<?>[] slices = new CompletableFuture<?>[sliceCount - 1];
+    for (int i = 1; i < sliceCount; i++) {
+      int from = sliceBound(outcomes.length, sliceCount, i);
+      int to = sliceBound(outcomes.length, sliceCount, i + 1);
+      slices[i - 1] =
+          CompletableFuture.runAsync(
+              () -> verifySlice(requests, outcomes, from, to), batchExecutor);
+    }
+    // The calling thread takes its share instead of idling
+    verifySlice(requests, outcomes, 0, sliceBound(outcomes.length, sliceCount, 1));
+    try {
+      CompletableFuture.allOf(slices).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
       }
+      throw e;
     }
+    return Arrays.asList(outcomes);
+  }
+
+  private static int sliceBound(int size, int sliceCount, int sliceIndex) {
+    return (int) ((long) size * sliceIndex / sliceCount);
+  }
 
-    if (verificationExceptions.isEmpty()) {
-      throw new WebhookSignatureVerificationException(
-          "No supporting verification key found for any signature among %s".formatted(signatures));
+  private void verifySlice(
+      List<WebhookRequest> requests, VerificationOutcome[] outcomes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      WebhookRequest request = requests.get(i);
+      outcomes[i] = tryVerify(request.headers(), request.payload());
     }
+  }
 
-    WebhookSignatureVerificationException collectingException =
-        new WebhookSignatureVerificationException(
-            "No signature among %s is valid".formatted(signatures));
-    verificationExceptions.forEach(collectingException::addSuppressed);
-    throw collectingException;
+  /**
+   * See {@link #verifyingInputStream(WebhookHeaders, InputStream)}.
+   */
+  public InputStream verifyingInputStream(HttpHeaders headers, InputStream payload)
+      throws WebhookSignatureVerificationException {
+    return verifyingInputStream(WebhookHeaders.of(headers), payload);
   }
 
-  private long verifyTimestamp(String messageTimestamp)
+  /**
+   * Verifies the payload while the application reads it, with bounded memory for HMAC signatures.
+   * Ed25519 signatures still need the whole payload, which the JDK provider buffers internally.
+   *
+   * <p>The headers are verified immediately. Reaching the end of the returned stream throws an
+   * {@link IOException} caused by a {@link WebhookSignatureVerificationException} if no signature
+   * matches the payload. Nothing read from the stream should be trusted before its end was reached
+   * without error.
+   */
+  public InputStream verifyingInputStream(WebhookHeaders headers, InputStream payload)
       throws WebhookSignatureVerificationException {
-    long nowInSeconds = Duration.ofMillis(clock.millis()).toSeconds();
+    requireNonNull(payload);
+    return new VerifyingInputStream(payload, startPayloadVerification(headers));
+  }
+
+  /**
+   * See {@link #verifyingChannel(WebhookHeaders, ReadableByteChannel)}.
+   */
+  public ReadableByteChannel verifyingChannel(HttpHeaders headers, ReadableByteChannel payload)
+      throws WebhookSignatureVerificationException {
+    return verifyingChannel(WebhookHeaders.of(headers), payload);
+  }
+
+  /**
+   * The {@link ReadableByteChannel} counterpart of {@link #verifyingInputStream(WebhookHeaders,
+   * InputStream)}.
+   */
+  public ReadableByteChannel verifyingChannel(WebhookHeaders headers, ReadableByteChannel payload)
+      throws WebhookSignatureVerificationException {
+    requireNonNull(payload);
+    return new VerifyingReadableByteChannel(payload, startPayloadVerification(headers));
+  }
+
+  /**
+   * Runs a synthetic message through the whole verification path against every registered key,
+   * so that the classes, the cryptographic providers and the engine pools are loaded and
+   * initialized before the first real request arrives. The synthetic message is never reported to
+   * the {@link VerificationListener} nor recorded by the {@link ReplayGuard}.
+   *
+   * <p>This is meant for environments where the time to the first verification matters, such as
+   * serverless functions. See {@link Builder#warmUpOnBuild(boolean)}.
+   */
+  public void warmUp() {
+    long nowMillis = clock.millis();
+    WebhookHeaders headers =
+        WebhookHeaders.of(
+            WARM_UP_MESSAGE_ID,
+            String.valueOf(Math.floorDiv(nowMillis, MILLIS_PER_SECOND)),
+            WARM_UP_SIGNATURE_HEADER);
+    try {
+      MessageVerification.prepare(
+              WARM_UP_MESSAGE_ID,
+              verifyTimestamp(
+                  headers.firstValue(WebhookHeaders.MESSAGE_TIMESTAMP_HEADER_NAME), nowMillis),
+              SignatureHeader.parseAtLeastOne(headers),
+              currentVerificationKeys(nowMillis),
+              NO_REPLAY_GUARD,
+              VerificationMetrics.DISABLED,
+              VerificationCache.DISABLED)
+          .verify(ByteBuffer.wrap(WARM_UP_PAYLOAD), true);
+    } catch (WebhookSignatureVerificationException e) {
+      // Expected, the synthetic signatures match no key
+    }
+  }
 
-    long timestamp;
+  private PayloadVerification startPayloadVerification(WebhookHeaders headers)
+      throws WebhookSignatureVerificationException {
     try {
-      timestamp = Long.parseLong(messageTimestamp);
-    } catch (NumberFormatException e) {
-      throw new WebhookSignatureVerificationException(
-          "Cannot parse timestamp <%s>".formatted(messageTimestamp));
+      return new PayloadVerification(
+          prepare(headers).startIncremental(lightweightExceptions), metrics);
+    } catch (WebhookSignatureVerificationException e) {
+      metrics.rejected(e);
+      throw e;
+    }
+  }
+
+  private MessageVerification prepare(WebhookHeaders headers)
+      throws WebhookSignatureVerificationException {
+    long start = metrics.nanoTime();
+    // The timestamp is checked first, as it is the cheapest way to reject a forged request
+    String messageTimestampAsString =
+        headers.firstValue(WebhookHeaders.MESSAGE_TIMESTAMP_HEADER_NAME);
+    if (messageTimestampAsString == null || messageTimestampAsString.isBlank()) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MISSING_HEADER,
+          "No value found for header <%s>",
+          WebhookHeaders.MESSAGE_TIMESTAMP_HEADER_NAME);
+    }
+
+    long timestampCheckStart = metrics.nanoTime();
+    long nowMillis = clock.millis();
+    long timestamp = verifyTimestamp(messageTimestampAsString, nowMillis);
+    long timestampCheckEnd = metrics.nanoTime();
+
+    String messageId = headers.firstValue(WebhookHeaders.MESSAGE_ID_HEADER_NAME);
+    if (messageId == null || messageId.isBlank()) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MISSING_HEADER,
+          "No value found for header <%s>",
+          WebhookHeaders.MESSAGE_ID_HEADER_NAME);
+    }
+
+    MessageVerification verification =
+        MessageVerification.prepare(
+            messageId,
+            timestamp,
+            SignatureHeader.parseAtLeastOne(headers),
+            currentVerificationKeys(nowMillis),
+            replayGuard,
+            metrics,
+            verificationCache);
+    verification.recordPreparation(
+        (timestampCheckStart - start) + (metrics.nanoTime() - timestampCheckEnd),
+        timestampCheckEnd - timestampCheckStart);
+    return verification;
+  }
+
+  private VerificationKeys currentVerificationKeys(long nowMillis) {
+    VerificationKeys keys = verificationKeys.get();
+    if (nowMillis < keys.nextExpiryMillis()) {
+      return keys;
+    }
+    return verificationKeys.updateAndGet(current -> current.withoutExpiredKeys(nowMillis));
+  }
+
+  private long verifyTimestamp(String messageTimestamp, long nowMillis)
+      throws WebhookSignatureVerificationException {
+    long nowInSeconds = Math.floorDiv(nowMillis, MILLIS_PER_SECOND);
+
+    long timestamp = MessageTimestamp.parse(messageTimestamp);
+    if (timestamp == MessageTimestamp.MALFORMED) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.MALFORMED_TIMESTAMP,
+          "Cannot parse timestamp <%s>",
+          messageTimestamp);
     }
 
-    if (timestamp < (nowInSeconds - messageTimestampAllowedSkew.toSeconds())) {
-      throw new WebhookSignatureVerificationException(
-          "Message timestamp <%s seconds> is too old compared to the current timestamp <%s seconds>"
-              .formatted(timestamp, nowInSeconds));
+    if (timestamp < (nowInSeconds - messageTimestampAllowedSkewSeconds)) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.TIMESTAMP_TOO_OLD,
+          "Message timestamp <%s seconds> is too old compared to the current timestamp <%s seconds>",
+          timestamp,
+          nowInSeconds);
     }
-    if (timestamp > (nowInSeconds + messageTimestampAllowedSkew.toSeconds())) {
-      throw new WebhookSignatureVerificationException(
-          "Message timestamp <%s seconds> is too new compared to the current timestamp <%s seconds>"
-              .formatted(timestamp, nowInSeconds));
+    if (timestamp > (nowInSeconds + messageTimestampAllowedSkewSeconds)) {
+      throw WebhookSignatureVerificationException.rejection(
+          VerificationFailureReason.TIMESTAMP_TOO_NEW,
+          "Message timestamp <%s seconds> is too new compared to the current timestamp <%s seconds>",
+          timestamp,
+          nowInSeconds);
     }
     return timestamp;
   }
 
   public static class Builder {
-    private final List<String> serializedVerificationKeys = new ArrayList<>();
+    private final List<LabeledKey> verificationKeys = new ArrayList<>();
     private Duration messageTimestampAllowedSkew = DEFAULT_MESSAGE_TIMESTAMP_ALLOWED_SKEW;
     private Clock clock = Clock.systemDefaultZone();
+    private ReplayGuard replayGuard = NO_REPLAY_GUARD;
+    private VerificationMetrics metrics = VerificationMetrics.DISABLED;
+    private Executor batchExecutor = ForkJoinPool.commonPool();
+    private boolean lightweightExceptions;
+    private boolean warmUpOnBuild;
+    private CryptoBackend cryptoBackend = CryptoBackend.jca();
+    private int verificationCacheMaxEntries;
 
-    private Builder(String serializedVerificationKey) {
-      serializedVerificationKeys.add(requireNonNull(serializedVerificationKey));
+    private Builder(String serializedVerificationKey, String label) {
+      addSerializedVerificationKey(serializedVerificationKey, label);
     }
 
     /**
      * @param serializedVerificationKey e.g. "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4="
      */
     public Builder addSerializedVerificationKey(String serializedVerificationKey) {
-      serializedVerificationKeys.add(requireNonNull(serializedVerificationKey));
+      return addSerializedVerificationKey(serializedVerificationKey, null);
+    }
+
+    /**
+     * @param serializedVerificationKey e.g. "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4="
+     * @param label See {@link WebhookSignatureVerifier#addKey(String, String)}
+     */
+    public Builder addSerializedVerificationKey(String serializedVerificationKey, String label) {
+      verificationKeys.add(new LabeledKey(requireNonNull(serializedVerificationKey), label));
       return this;
     }
 
@@ -145,13 +545,107 @@ public class WebhookSignatureVerifier {
       return this;
     }
 
+    /**
+     * @param clock See {@link TickingClock} to spare reading the system clock on every
+     *     verification
+     */
     public Builder clock(Clock clock) {
       this.clock = requireNonNull(clock);
       return this;
     }
 
+    /**
+     * @param replayGuard Rejects verified messages whose id was already received. See {@link
+     *     ReplayGuard#inMemory(int)}.
+     */
+    public Builder replayGuard(ReplayGuard replayGuard) {
+      this.replayGuard = requireNonNull(replayGuard);
+      return this;
+    }
+
+    /**
+     * @param verificationListener Notified of the outcome of each verification
+     */
+    public Builder verificationListener(VerificationListener verificationListener) {
+      this.metrics = VerificationMetrics.reportingTo(requireNonNull(verificationListener));
+      return this;
+    }
+
+    /**
+     * @param batchExecutor Runs the verifications of {@link
+     *     WebhookSignatureVerifier#verifyAll(List)}, e.g. a virtual thread per task executor.
+     *     Defaults to the common {@link ForkJoinPool}.
+     */
+    public Builder batchExecutor(Executor batchExecutor) {
+      this.batchExecutor = requireNonNull(batchExecutor);
+      return this;
+    }
+
+    /**
+     * @param lightweightExceptions Whether thrown {@link WebhookSignatureVerificationException}
+     *     should have no stack trace, and keep only the reason of each failed attempt instead of a
+     *     suppressed exception per attempt. This makes failures about as cheap as successes.
+     */
+    public Builder lightweightExceptions(boolean lightweightExceptions) {
+      this.lightweightExceptions = lightweightExceptions;
+      return this;
+    }
+
+    /**
+     * @param warmUpOnBuild Whether {@link #build()} should call {@link
+     *     WebhookSignatureVerifier#warmUp()} before returning the verifier. Defaults to false.
+     */
+    public Builder warmUpOnBuild(boolean warmUpOnBuild) {
+      this.warmUpOnBuild = warmUpOnBuild;
+      return this;
+    }
+
+    /**
+     * @param cryptoBackend The implementation of the cryptographic primitives. Defaults to {@link
+     *     CryptoBackend#jca()}.
+     */
+    public Builder cryptoBackend(CryptoBackend cryptoBackend) {
+      this.cryptoBackend = requireNonNull(cryptoBackend);
+      return this;
+    }
+
+    /**
+     * Remembers up to {@code maxEntries} positively verified messages, so that redeliveries of the
+     * same message, e.g. during the recovery of a sender outage, skip the signature verification.
+     * A message is recognized when its id, timestamp, signature header and payload SHA-256 digest
+     * all match. Remembered messages are forgotten once their timestamp leaves the allowed skew.
+     *
+     * <p>The payload of every message is digested, so this only pays off when the signature
+     * verification costs more than a SHA-256 digest of the payload: with Ed25519 keys, or with
+     * several keys or signatures per message. Streamed payloads do not use the cache. Disabled by
+     * default.
+     *
+     * <p>A replay guard would reject every message found in the cache, so the cache cannot be
+     * combined with a {@link #replayGuard(ReplayGuard)}.
+     *
+     * @param maxEntries 0 to disable the cache
+     */
+    public Builder verificationCache(int maxEntries) {
+      if (maxEntries < 0) {
+        throw new IllegalArgumentException("maxEntries cannot be negative");
+      }
+      this.verificationCacheMaxEntries = maxEntries;
+      return this;
+    }
+
     public WebhookSignatureVerifier build() {
+      if (replayGuard != NO_REPLAY_GUARD && verificationCacheMaxEntries > 0) {
+        // A message found in the cache was already recorded by the replay guard
+        throw new IllegalStateException(
+            "A verification cache cannot be combined with a replay guard, which would reject"
+                + " every cached message");
+      }
+      if (replayGuard instanceof InMemoryReplayGuard inMemoryReplayGuard) {
+        inMemoryReplayGuard.attach(messageTimestampAllowedSkew);
+      }
       return new WebhookSignatureVerifier(this);
     }
   }
+
+  private record LabeledKey(String serializedKey, String label) {}
 }
@@ -0,0 +1,263 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Lazily builds and caches one {@link WebhookSignatureVerifier} per tenant.
+ *
+ * <p>Looking up a cached verifier is a single concurrent map read. Verifiers are built on first
+ * use from a {@link VerificationKeySource}, and dropped once idle for too long or when the registry
+ * exceeds its maximum size, so that rarely used tenants do not keep their keys and engines
+ * resident.
+ *
+ * <p>The key source is called outside of any lock. Concurrent first lookups of a tenant may each
+ * call it, the first built verifier being kept. Tenants unknown to the key source are remembered
+ * for a short while, so that lookups of unknown tenant ids do not hit the key source every time.
+ *
+ * @author Réda Housni Alaoui
+ */
+public final class WebhookSignatureVerifierRegistry {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+  private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofHours(1);
+  private static final Duration DEFAULT_EXPIRE_UNKNOWN_TENANT_AFTER = Duration.ofSeconds(10);
+
+  /** Coarser access times spare a write to a shared field on most lookups. */
+  private static final long ACCESS_TIME_GRANULARITY_MILLIS = 1000;
+
+  private final VerificationKeySource keySource;
+  private final Consumer<WebhookSignatureVerifier.Builder> verifierCustomizer;
+  private final int maximumSize;
+  private final long expireAfterAccessMillis;
+  private final long expireUnknownTenantAfterMillis;
+  private final Clock clock;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+  private volatile long lastEvictionMillis;
+
+  private WebhookSignatureVerifierRegistry(Builder builder) {
+    keySource = builder.keySource;
+    verifierCustomizer = builder.verifierCustomizer;
+    maximumSize = builder.maximumSize;
+    expireAfterAccessMillis = builder.expireAfterAccess.toMillis();
+    expireUnknownTenantAfterMillis = builder.expireUnknownTenantAfter.toMillis();
+    clock = builder.clock;
+    lastEvictionMillis = clock.millis();
+  }
+
+  public static Builder builder(VerificationKeySource keySource) {
+    return new Builder(keySource);
+  }
+
+  /**
+   * @return The verifier of the tenant, or an empty optional if the key source does not know the
+   *     tenant
+   */
+  public Optional<WebhookSignatureVerifier> find(String tenantId) {
+    requireNonNull(tenantId);
+    long now = clock.millis();
+    Entry entry = entries.get(tenantId);
+    if (entry == null || entry.isExpired(now)) {
+      entry = load(tenantId, entry, now);
+    }
+    entry.recordAccess(now);
+    return entry.verifier;
+  }
+
+  /**
+   * @param expiredEntry The entry to replace, null if the tenant has no entry
+   */
+  private Entry load(String tenantId, Entry expiredEntry, long now) {
+    Entry loadedEntry = createEntry(tenantId, now);
+    Entry entry = loadedEntry;
+    if (expiredEntry == null) {
+      Entry concurrentlyLoadedEntry = entries.putIfAbsent(tenantId, loadedEntry);
+      if (concurrentlyLoadedEntry != null) {
+        entry = concurrentlyLoadedEntry;
+      }
+    } else {
+      entries.replace(tenantId, expiredEntry, loadedEntry);
+    }
+    evictIfNeeded(now);
+    return entry;
+  }
+
+  /**
+   * Reloads the keys of the tenant from the key source. Lookups keep using the previous verifier
+   * until the new one replaces it.
+   */
+  public void refresh(String tenantId) {
+    requireNonNull(tenantId);
+    entries.put(tenantId, createEntry(tenantId, clock.millis()));
+  }
+
+  public void invalidate(String tenantId) {
+    entries.remove(requireNonNull(tenantId));
+  }
+
+  /** Drops idle verifiers and verifiers in excess right away, e.g. from a scheduled task. */
+  public void cleanUp() {
+    long now = clock.millis();
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      evict(now);
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * @return The number of cached tenants, including the unknown ones
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  private Entry createEntry(String tenantId, long now) {
+    List<String> serializedVerificationKeys = keySource.serializedVerificationKeys(tenantId);
+    if (serializedVerificationKeys == null || serializedVerificationKeys.isEmpty()) {
+      return new Entry(Optional.empty(), now, now + expireUnknownTenantAfterMillis);
+    }
+    WebhookSignatureVerifier.Builder verifierBuilder =
+        WebhookSignatureVerifier.builder(serializedVerificationKeys.get(0));
+    for (int i = 1; i < serializedVerificationKeys.size(); i++) {
+      verifierBuilder.addSerializedVerificationKey(serializedVerificationKeys.get(i));
+    }
+    verifierCustomizer.accept(verifierBuilder);
+    return new Entry(Optional.of(verifierBuilder.build()), now, Long.MAX_VALUE);
+  }
+
+  private void evictIfNeeded(long now) {
+    if (entries.size() <= maximumSize && now - lastEvictionMillis < expireAfterAccessMillis) {
+      return;
+    }
+    cleanUp();
+  }
+
+  private void evict(long now) {
+    lastEvictionMillis = now;
+    entries.values().removeIf(entry -> now - entry.lastAccessMillis >= expireAfterAccessMillis);
+
+    int excess = entries.size() - maximumSize;
+    if (excess <= 0) {
+      return;
+    }
+    // Evicting a tenth more than needed amortizes the scan over the following loads
+    int evictionCount = excess + maximumSize / 10;
+    List<Map.Entry<String, Entry>> leastRecentlyUsed = new ArrayList<>(entries.entrySet());
+    leastRecentlyUsed.sort(
+        Comparator.comparingLong(mapEntry -> mapEntry.getValue().lastAccessMillis));
+    for (int i = 0; i < Math.min(evictionCount, leastRecentlyUsed.size()); i++) {
+      Map.Entry<String, Entry> mapEntry = leastRecentlyUsed.get(i);
+      entries.remove(mapEntry.getKey(), mapEntry.getValue());
+    }
+  }
+
+  private static final class Entry {
+
+    /** Empty if the tenant is unknown */
+    private final Optional<WebhookSignatureVerifier> verifier;
+
+    private final long expirationMillis;
+    private volatile long lastAccessMillis;
+
+    private Entry(Optional<WebhookSignatureVerifier> verifier, long now, long expirationMillis) {
+      this.verifier = verifier;
+      this.expirationMillis = expirationMillis;
+      this.lastAccessMillis = now;
+    }
+
+    /**
+     * @return True if the key source must be asked again about the tenant
+     */
+    private boolean isExpired(long now) {
+      return now >= expirationMillis;
+    }
+
+    private void recordAccess(long now) {
+      if (now - lastAccessMillis >= ACCESS_TIME_GRANULARITY_MILLIS) {
+        lastAccessMillis = now;
+      }
+    }
+  }
+
+  public static class Builder {
+    private final VerificationKeySource keySource;
+    private Consumer<WebhookSignatureVerifier.Builder> verifierCustomizer = verifierBuilder -> {};
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private Duration expireAfterAccess = DEFAULT_EXPIRE_AFTER_ACCESS;
+    private Duration expireUnknownTenantAfter = DEFAULT_EXPIRE_UNKNOWN_TENANT_AFTER;
+    private Clock clock = Clock.systemDefaultZone();
+
+    private Builder(VerificationKeySource keySource) {
+      this.keySource = requireNonNull(keySource);
+    }
+
+    /**
+     * @param verifierCustomizer Applies the settings shared by all tenants, e.g. the allowed
+     *     timestamp skew, to each verifier builder once its keys were added
+     */
+    public Builder verifierCustomizer(
+        Consumer<WebhookSignatureVerifier.Builder> verifierCustomizer) {
+      this.verifierCustomizer = requireNonNull(verifierCustomizer);
+      return this;
+    }
+
+    /**
+     * @param maximumSize The number of verifiers beyond which the least recently used ones are
+     *     dropped
+     */
+    public Builder maximumSize(int maximumSize) {
+      if (maximumSize <= 0) {
+        throw new IllegalArgumentException("maximumSize must be strictly positive");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * @param expireAfterAccess The time after which an unused verifier is dropped
+     */
+    public Builder expireAfterAccess(Duration expireAfterAccess) {
+      this.expireAfterAccess = requireNonNull(expireAfterAccess);
+      return this;
+    }
+
+    /**
+     * @param expireUnknownTenantAfter The time during which the key source is not asked again
+     *     about a tenant it did not know. Zero to ask it on every lookup.
+     */
+    public Builder expireUnknownTenantAfter(Duration expireUnknownTenantAfter) {
+      if (requireNonNull(expireUnknownTenantAfter).isNegative()) {
+        throw new IllegalArgumentException("expireUnknownTenantAfter cannot be negative");
+      }
+      this.expireUnknownTenantAfter = expireUnknownTenantAfter;
+      return this;
+    }
+
+    /**
+     * @param clock Measures idle times. It is distinct from the clock used by the verifiers.
+     */
+    public Builder clock(Clock clock) {
+      this.clock = requireNonNull(clock);
+      return this;
+    }
+
+    public WebhookSignatureVerifierRegistry build() {
+      return new WebhookSignatureVerifierRegistry(this);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SignatureException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class AllocationTest {
+
+  private static final String SECRET = "b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=";
+  private static final String PUBLIC_KEY =
+      "whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=";
+  private static final String MESSAGE_ID = "7a2486b3-31cf-4bd3-a460-df8845d16cd5";
+  private static final long TIMESTAMP = 1737987215;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  @DisplayName("Verify byte array payload allocation does not depend on the payload size")
+  void test1() throws Exception {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_" + SECRET)
+            .clock(Clock.fixed(Instant.ofEpochSecond(TIMESTAMP), ZoneId.systemDefault()))
+            .build();
+
+    byte[] smallPayload = createPayload(1024);
+    HttpHeaders smallPayloadHeaders = createHttpHeaders(smallPayload);
+    byte[] largePayload = createPayload(1024 * 1024);
+    HttpHeaders largePayloadHeaders = createHttpHeaders(largePayload);
+
+    long smallPayloadAllocatedBytes =
+        measureAllocatedBytesPerVerification(verifier, smallPayloadHeaders, smallPayload);
+    long largePayloadAllocatedBytes =
+        measureAllocatedBytesPerVerification(verifier, largePayloadHeaders, largePayload);
+
+    assertThat(largePayloadAllocatedBytes)
+        .isLessThan(smallPayloadAllocatedBytes + largePayload.length / 100);
+  }
+
+  @Test
+  @DisplayName("Verify buffers one payload copy at a time for many Ed25519 candidates")
+  void test2() {
+    BufferingCryptoBackend cryptoBackend = new BufferingCryptoBackend();
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(PUBLIC_KEY)
+            .clock(Clock.fixed(Instant.ofEpochSecond(TIMESTAMP), ZoneId.systemDefault()))
+            .cryptoBackend(cryptoBackend)
+            .build();
+
+    byte[] payload = createPayload(1024 * 1024);
+    StringJoiner signatures = new StringJoiner(" ");
+    for (int i = 0; i < 16; i++) {
+      byte[] junkSignature = new byte[64];
+      Arrays.fill(junkSignature, (byte) i);
+      signatures.add("v1a," + Base64.getEncoder().encodeToString(junkSignature));
+    }
+    WebhookHeaders headers =
+        WebhookHeaders.of(MESSAGE_ID, String.valueOf(TIMESTAMP), signatures.toString());
+
+    assertThatThrownBy(() -> verifier.verify(headers, payload))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+    assertThat(cryptoBackend.maxBufferedBytes.get()).isLessThan(payload.length + 1024L);
+  }
+
+  private long measureAllocatedBytesPerVerification(
+      WebhookSignatureVerifier verifier, HttpHeaders headers, byte[] payload)
+      throws WebhookSignatureVerificationException {
+    for (int i = 0; i < ITERATIONS; i++) {
+      verifier.verify(headers, payload);
+    }
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long allocatedBytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < ITERATIONS; i++) {
+      verifier.verify(headers, payload);
+    }
+    return (threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytesBefore) / ITERATIONS;
+  }
+
+  private byte[] createPayload(int size) {
+    byte[] payload = new byte[size];
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) ('a' + i % 26);
+    }
+    return payload;
+  }
+
+  private HttpHeaders createHttpHeaders(byte[] payload) throws GeneralSecurityException {
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(Base64.getDecoder().decode(SECRET), "HmacSHA256"));
+    mac.update((MESSAGE_ID + "." + TIMESTAMP + ".").getBytes(StandardCharsets.UTF_8));
+    String signature = "v1," + Base64.getEncoder().encodeToString(mac.doFinal(payload));
+    return HttpHeaders.of(
+        Map.of(
+            "webhook-id",
+            List.of(MESSAGE_ID),
+            "webhook-timestamp",
+            List.of(String.valueOf(TIMESTAMP)),
+            "webhook-signature",
+            List.of(signature)),
+        (s, s2) -> true);
+  }
+
+  /**
+   * Tracks the bytes held at once by its Ed25519 engines, assuming that each engine buffers the
+   * content until it is verified like the JDK implementation does.
+   */
+  private static class BufferingCryptoBackend implements CryptoBackend {
+
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong maxBufferedBytes = new AtomicLong();
+
+    @Override
+    public HmacSha256 hmacSha256(byte[] secret) throws GeneralSecurityException {
+      return CryptoBackend.jca().hmacSha256(secret);
+    }
+
+    @Override
+    public Ed25519Verifier ed25519Verifier(byte[] x509EncodedPublicKey)
+        throws GeneralSecurityException {
+      return new BufferingEd25519Verifier(
+          CryptoBackend.jca().ed25519Verifier(x509EncodedPublicKey));
+    }
+
+    private class BufferingEd25519Verifier implements Ed25519Verifier {
+
+      private final Ed25519Verifier delegate;
+      private long buffered;
+
+      private BufferingEd25519Verifier(Ed25519Verifier delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      public void update(byte[] bytes, int offset, int length) throws SignatureException {
+        delegate.update(bytes, offset, length);
+        buffer(length);
+      }
+
+      @Override
+      public void update(ByteBuffer bytes) throws SignatureException {
+        int length = bytes.remaining();
+        delegate.update(bytes);
+        buffer(length);
+      }
+
+      @Override
+      public boolean verify(byte[] signature, int offset, int length) throws SignatureException {
+        try {
+          return delegate.verify(signature, offset, length);
+        } finally {
+          release();
+        }
+      }
+
+      @Override
+      public void reset() throws GeneralSecurityException {
+        delegate.reset();
+        release();
+      }
+
+      @Override
+      public Ed25519Verifier newEngine() throws GeneralSecurityException {
+        return new BufferingEd25519Verifier(delegate.newEngine());
+      }
+
+      private void buffer(long length) {
+        buffered += length;
+        maxBufferedBytes.accumulateAndGet(bufferedBytes.addAndGet(length), Math::max);
+      }
+
+      private void release() {
+        bufferedBytes.addAndGet(-buffered);
+        buffered = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class CryptoBackendTest {
+
+  private static final byte[] CONTENT =
+      "7a2486b3-31cf-4bd3-a460-df8845d16cd5.1737987215.{\"greetings\": \"Hello World\"}"
+          .getBytes(StandardCharsets.UTF_8);
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 32, 64, 65, 100})
+  @DisplayName("Compute the same HMAC-SHA256 as the JCA on top of MessageDigest")
+  void test1(int secretLength) throws GeneralSecurityException {
+    byte[] secret = new byte[secretLength];
+    Arrays.fill(secret, (byte) 7);
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+    byte[] expected = mac.doFinal(CONTENT);
+
+    CryptoBackend.HmacSha256 hmac = CryptoBackend.messageDigest().hmacSha256(secret);
+    hmac.update(CONTENT, 0, 10);
+    hmac.reset();
+    hmac.update(CONTENT, 0, 10);
+    hmac.update(ByteBuffer.wrap(CONTENT, 10, CONTENT.length - 10));
+    assertThat(hmac.doFinal()).isEqualTo(expected);
+
+    CryptoBackend.HmacSha256 newEngine = hmac.newEngine();
+    newEngine.update(CONTENT, 0, CONTENT.length);
+    assertThat(newEngine.doFinal()).isEqualTo(expected);
+    hmac.update(CONTENT, 0, CONTENT.length);
+    assertThat(hmac.doFinal()).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,106 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class InMemoryReplayGuardTest {
+
+  private static final long NOW = 1737987215;
+
+  @Test
+  @DisplayName("Reject a message id received twice")
+  void test1() {
+    InMemoryReplayGuard replayGuard = createReplayGuard(100);
+
+    assertThat(replayGuard.markReceived("foo", NOW)).isEqualTo(ReplayGuard.Result.RECORDED);
+    assertThat(replayGuard.markReceived("bar", NOW)).isEqualTo(ReplayGuard.Result.RECORDED);
+    assertThat(replayGuard.markReceived("foo", NOW)).isEqualTo(ReplayGuard.Result.REPLAYED);
+    assertThat(replayGuard.hitCount()).isEqualTo(1L);
+    assertThat(replayGuard.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Forget message ids whose timestamp left the allowed window")
+  void test2() {
+    InMemoryReplayGuard replayGuard = createReplayGuard(100);
+    assertThat(replayGuard.markReceived("foo", NOW)).isEqualTo(ReplayGuard.Result.RECORDED);
+
+    long later = NOW + Duration.ofMinutes(20).toSeconds();
+    assertThat(replayGuard.markReceived("bar", later)).isEqualTo(ReplayGuard.Result.RECORDED);
+    assertThat(replayGuard.markReceived("foo", later)).isEqualTo(ReplayGuard.Result.RECORDED);
+
+    assertThat(replayGuard.markReceived("baz", NOW)).isEqualTo(ReplayGuard.Result.REFUSED);
+    assertThat(replayGuard.refusalCount()).isEqualTo(1L);
+  }
+
+  @Test
+  @DisplayName("Refuse messages once full until buckets expire")
+  void test3() {
+    InMemoryReplayGuard replayGuard = createReplayGuard(2);
+    assertThat(replayGuard.markReceived("foo", NOW)).isEqualTo(ReplayGuard.Result.RECORDED);
+    assertThat(replayGuard.markReceived("bar", NOW)).isEqualTo(ReplayGuard.Result.RECORDED);
+
+    assertThat(replayGuard.markReceived("baz", NOW)).isEqualTo(ReplayGuard.Result.REFUSED);
+    assertThat(replayGuard.refusalCount()).isEqualTo(1L);
+
+    long later = NOW + Duration.ofMinutes(20).toSeconds();
+    assertThat(replayGuard.markReceived("baz", later)).isEqualTo(ReplayGuard.Result.RECORDED);
+    assertThat(replayGuard.evictionCount()).isEqualTo(2L);
+    assertThat(replayGuard.size()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Refuse to be shared by verifiers allowing different skews")
+  void test4() {
+    InMemoryReplayGuard replayGuard = createReplayGuard(100);
+    replayGuard.attach(Duration.ofMinutes(5));
+
+    assertThatThrownBy(() -> replayGuard.attach(Duration.ofMinutes(10)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Never exceed the maximum number of entries under concurrency")
+  void test5() throws InterruptedException {
+    InMemoryReplayGuard replayGuard = createReplayGuard(100);
+    AtomicInteger recordedCount = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      String threadId = String.valueOf(i);
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    for (int j = 0; j < 1000; j++) {
+                      if (replayGuard.markReceived(threadId + "-" + j, NOW)
+                          == ReplayGuard.Result.RECORDED) {
+                        recordedCount.incrementAndGet();
+                      }
+                    }
+                  }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(recordedCount.get()).isEqualTo(100);
+    assertThat(replayGuard.size()).isEqualTo(100);
+    assertThat(replayGuard.refusalCount()).isEqualTo(7900L);
+  }
+
+  private InMemoryReplayGuard createReplayGuard(int maxEntries) {
+    InMemoryReplayGuard replayGuard = ReplayGuard.inMemory(maxEntries);
+    replayGuard.attach(Duration.ofMinutes(5));
+    return replayGuard;
+  }
+}
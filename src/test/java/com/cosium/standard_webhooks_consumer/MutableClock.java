@@ -0,0 +1,37 @@
+package com.cosium.standard_webhooks_consumer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class MutableClock extends Clock {
+
+  private volatile Instant instant;
+
+  MutableClock(Instant instant) {
+    this.instant = instant;
+  }
+
+  void advance(Duration duration) {
+    instant = instant.plus(duration);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneId.systemDefault();
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Instant instant() {
+    return instant;
+  }
+}
@@ -0,0 +1,46 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class TickingClockTest {
+
+  @Test
+  @DisplayName("Follow the source clock on each tick")
+  void test1() throws InterruptedException {
+    MutableClock source = new MutableClock(Instant.ofEpochSecond(1737987215));
+    try (TickingClock clock = TickingClock.start(source, Duration.ofMillis(10))) {
+      assertThat(clock.millis()).isEqualTo(source.millis());
+
+      source.advance(Duration.ofMinutes(1));
+      long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (clock.millis() != source.millis() && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+
+      assertThat(clock.instant()).isEqualTo(source.instant());
+    }
+  }
+
+  @Test
+  @DisplayName("Tick in another zone")
+  void test2() {
+    MutableClock source = new MutableClock(Instant.ofEpochSecond(1737987215));
+    try (TickingClock clock = TickingClock.start(source, Duration.ofMinutes(1))) {
+      Clock zonedClock = clock.withZone(ZoneOffset.ofHours(5));
+
+      assertThat(zonedClock.getZone()).isEqualTo(ZoneOffset.ofHours(5));
+      assertThat(zonedClock.instant()).isEqualTo(clock.instant());
+      assertThat(zonedClock.withZone(clock.getZone())).isSameAs(clock);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class VerificationCacheTest {
+
+  private static final long NOW = 1737987215;
+  private static final long SKEW_SECONDS = Duration.ofMinutes(5).toSeconds();
+  private static final String SIGNATURE_HEADER = "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo=";
+  private static final VerificationKey KEY =
+      SecretKey.parseKey("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=", CryptoBackend.jca())
+          .orElseThrow();
+
+  @Test
+  @DisplayName("Find a remembered message only with the same payload")
+  void test1() throws GeneralSecurityException {
+    VerificationCache cache =
+        new VerificationCache(new MutableClock(Instant.ofEpochSecond(NOW)), SKEW_SECONDS, 100);
+    byte[] payloadDigest = cache.digest(payload("Hello World"));
+    cache.remember("foo", NOW, SIGNATURE_HEADER, payloadDigest, KEY);
+
+    assertThat(cache.find("foo", NOW, SIGNATURE_HEADER, payloadDigest)).isSameAs(KEY);
+    assertThat(cache.find("foo", NOW, SIGNATURE_HEADER, cache.digest(payload("Bye World"))))
+        .isNull();
+    assertThat(cache.find("bar", NOW, SIGNATURE_HEADER, payloadDigest)).isNull();
+  }
+
+  @Test
+  @DisplayName("Stop remembering messages once full until buckets expire")
+  void test2() throws GeneralSecurityException {
+    MutableClock clock = new MutableClock(Instant.ofEpochSecond(NOW));
+    VerificationCache cache = new VerificationCache(clock, SKEW_SECONDS, 2);
+    byte[] payloadDigest = cache.digest(payload("Hello World"));
+    cache.remember("foo", NOW, SIGNATURE_HEADER, payloadDigest, KEY);
+    cache.remember("bar", NOW, SIGNATURE_HEADER, payloadDigest, KEY);
+
+    cache.remember("baz", NOW, SIGNATURE_HEADER, payloadDigest, KEY);
+    assertThat(cache.find("baz", NOW, SIGNATURE_HEADER, payloadDigest)).isNull();
+    assertThat(cache.size()).isEqualTo(2);
+
+    clock.advance(Duration.ofMinutes(20));
+    long later = NOW + Duration.ofMinutes(20).toSeconds();
+    cache.remember("baz", later, SIGNATURE_HEADER, payloadDigest, KEY);
+    assertThat(cache.find("baz", later, SIGNATURE_HEADER, payloadDigest)).isSameAs(KEY);
+    assertThat(cache.find("foo", NOW, SIGNATURE_HEADER, payloadDigest)).isNull();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  private ByteBuffer payload(String payload) {
+    return ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+  }
+}
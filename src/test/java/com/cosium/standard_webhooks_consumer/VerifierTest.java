@@ -1,14 +1,35 @@
 package com.cosium.standard_webhooks_consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Security;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -502,6 +523,908 @@ class VerifierTest {
     verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
   }
 
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signature of a byte array payload")
+  void test20(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    verifier.verify(
+        httpHeaders, "{\"greetings\": \"Hello World\"}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signature of a direct ByteBuffer payload")
+  void test21(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    byte[] payload = "{\"greetings\": \"Hello World\"}".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payloadBuffer = ByteBuffer.allocateDirect(payload.length + 4);
+    payloadBuffer.position(2);
+    payloadBuffer.put(payload);
+    payloadBuffer.position(2).limit(2 + payload.length);
+
+    verifier.verify(httpHeaders, payloadBuffer);
+
+    assertThat(payloadBuffer.position()).isEqualTo(2);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signatures concurrently")
+  void test22(String verificationKey, String signature) throws Exception {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+
+    ExecutorService executorService = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<?>> verifications = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        verifications.add(
+            executorService.submit(
+                () -> {
+                  verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+                  return null;
+                }));
+      }
+      for (Future<?> verification : verifications) {
+        verification.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Build with malformed public key")
+  void test23() {
+    WebhookSignatureVerifier.Builder builder =
+        WebhookSignatureVerifier.builder("whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdz")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()));
+
+    assertThatThrownBy(builder::build)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(
+            "Could not decode Ed25519 public key <whpk_MCowBQYDK2VwAyEA********************>");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify request holding malformed signatures plus a valid signature")
+  void test24(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                "foo  v1, ,bar v1,a,b " + signature));
+
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify oversized signature header")
+  void test25(String verificationKey, String signature) {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                (signature + " ").repeat(100)));
+
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class)
+        .hasMessageContaining("Value of header <webhook-signature> is longer than 4096 characters");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signature with symmetric and asymmetric keys configured together")
+  void test26(String signature) throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw")
+            .addSerializedVerificationKey(
+                "whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=")
+            .addSerializedVerificationKey("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                "v2,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo= " + signature));
+
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwp='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDh=='"
+  })
+  @DisplayName("Verify non canonical base64 signature")
+  void test27(String verificationKey, String signature) {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class)
+        .hasMessageMatching("No signature among \\[.+] is valid");
+  }
+
+  @Test
+  @DisplayName("Verify valid signature matching the last of several secret keys")
+  void test28() throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw")
+            .addSerializedVerificationKey("whsec_8K7AtSPJlSxJUptG3ChwCtqL4Bjn1SrWu4ntc8jXYQs=")
+            .addSerializedVerificationKey("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                "v1,K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4= v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo="));
+
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signature of a streamed payload")
+  void test29(String verificationKey, String signature) throws Exception {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    byte[] payload = "{\"greetings\": \"Hello World\"}".getBytes(StandardCharsets.UTF_8);
+
+    try (InputStream inputStream =
+        verifier.verifyingInputStream(httpHeaders, new ByteArrayInputStream(payload))) {
+      assertThat(inputStream.read()).isEqualTo((int) '{');
+      assertThat(inputStream.skip(3)).isEqualTo(3);
+      assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+          .isEqualTo("eetings\": \"Hello World\"}");
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify invalid streamed payload")
+  void test30(String verificationKey, String signature) throws Exception {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    byte[] payload = "{\"greetings\": \"Hello\"}".getBytes(StandardCharsets.UTF_8);
+
+    try (InputStream inputStream =
+        verifier.verifyingInputStream(httpHeaders, new ByteArrayInputStream(payload))) {
+      assertThatThrownBy(inputStream::readAllBytes)
+          .isInstanceOf(IOException.class)
+          .hasCauseInstanceOf(WebhookSignatureVerificationException.class);
+      assertThatThrownBy(inputStream::read)
+          .isInstanceOf(IOException.class)
+          .hasCauseInstanceOf(WebhookSignatureVerificationException.class);
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify valid signature of a payload read from a channel into a direct buffer")
+  void test31(String verificationKey, String signature) throws Exception {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    byte[] payload = "{\"greetings\": \"Hello World\"}".getBytes(StandardCharsets.UTF_8);
+
+    try (ReadableByteChannel channel =
+        verifier.verifyingChannel(
+            httpHeaders, Channels.newChannel(new ByteArrayInputStream(payload)))) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(5);
+      int readBytes = 0;
+      while (channel.read(buffer) >= 0) {
+        readBytes += buffer.position();
+        buffer.clear();
+      }
+      assertThat(readBytes).isEqualTo(payload.length);
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify replayed message")
+  void test32(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    InMemoryReplayGuard replayGuard = ReplayGuard.inMemory(100);
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .replayGuard(replayGuard)
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class)
+        .hasMessageContaining(
+            "Message <7a2486b3-31cf-4bd3-a460-df8845d16cd5> was rejected by the replay guard");
+    assertThat(replayGuard.hitCount()).isEqualTo(1L);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Report verification outcomes to the listener")
+  void test33(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    List<String> events = new ArrayList<>();
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=")
+            .addSerializedVerificationKey(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .verificationListener(
+                new VerificationListener() {
+                  @Override
+                  public void onVerified(
+                      String signatureSchemeId,
+                      int keyIndex,
+                      long headerParsingNanos,
+                      long timestampCheckNanos,
+                      long cryptoNanos) {
+                    assertThat(cryptoNanos).isGreaterThan(0L);
+                    events.add(signatureSchemeId + ":" + keyIndex);
+                  }
+
+                  @Override
+                  public void onRejected(VerificationFailureReason reason) {
+                    events.add(reason.name());
+                  }
+                })
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Bye World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+
+    HttpHeaders tooOldHttpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215 - 3600),
+                "webhook-signature",
+                signature));
+    assertThatThrownBy(
+            () -> verifier.verify(tooOldHttpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+
+    String schemeId = signature.substring(0, signature.indexOf(','));
+    assertThat(events)
+        .containsExactly(schemeId + ":1", "INVALID_SIGNATURE", "TIMESTAMP_TOO_OLD");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Rotate keys")
+  void test34(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    MutableClock clock = new MutableClock(Instant.ofEpochSecond(1737987215));
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=")
+            .clock(clock)
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+
+    verifier.addKey(verificationKey);
+    verifier.retireKey("whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=");
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+
+    verifier.retireKey(verificationKey, Duration.ofMinutes(1));
+    verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}");
+
+    clock.advance(Duration.ofMinutes(1));
+    assertThatThrownBy(() -> verifier.verify(httpHeaders, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class)
+        .hasMessageContaining("No supporting verification key found");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify a batch of requests")
+  void test35(String verificationKey, String signature) {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      WebhookSignatureVerifier verifier =
+          WebhookSignatureVerifier.builder(verificationKey)
+              .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+              .batchExecutor(executor)
+              .build();
+      HttpHeaders httpHeaders =
+          createHttpHeaders(
+              Map.of(
+                  "webhook-id",
+                  "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                  "webhook-timestamp",
+                  String.valueOf(1737987215),
+                  "webhook-signature",
+                  signature));
+      List<WebhookRequest> requests = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        String payload =
+            i % 3 == 0 ? "{\"greetings\": \"Bye World\"}" : "{\"greetings\": \"Hello World\"}";
+        requests.add(new WebhookRequest(WebhookHeaders.of(httpHeaders), payload));
+      }
+
+      List<VerificationOutcome> outcomes = verifier.verifyAll(requests);
+
+      assertThat(outcomes).hasSize(100);
+      for (int i = 0; i < outcomes.size(); i++) {
+        VerificationOutcome outcome = outcomes.get(i);
+        assertThat(outcome.isVerified()).isEqualTo(i % 3 != 0);
+        assertThat(outcome.failure().map(WebhookSignatureVerificationException::reason))
+            .isEqualTo(
+                i % 3 == 0
+                    ? Optional.of(VerificationFailureReason.INVALID_SIGNATURE)
+                    : Optional.empty());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify published payload asynchronously")
+  void test36(String verificationKey, String signature) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      WebhookSignatureVerifier verifier =
+          WebhookSignatureVerifier.builder(verificationKey)
+              .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+              .build();
+      HttpHeaders httpHeaders =
+          createHttpHeaders(
+              Map.of(
+                  "webhook-id",
+                  "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                  "webhook-timestamp",
+                  String.valueOf(1737987215),
+                  "webhook-signature",
+                  signature));
+
+      CompletableFuture<VerifiedMessage> validVerification;
+      try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+        validVerification =
+            verifier.verifyAsync(httpHeaders, publisher, executor).toCompletableFuture();
+        publisher.submit(ByteBuffer.wrap("{\"greetings\": ".getBytes(StandardCharsets.UTF_8)));
+        publisher.submit(ByteBuffer.wrap("\"Hello World\"}".getBytes(StandardCharsets.UTF_8)));
+      }
+      assertThat(validVerification.get(10, TimeUnit.SECONDS).messageId())
+          .isEqualTo("7a2486b3-31cf-4bd3-a460-df8845d16cd5");
+
+      CompletableFuture<VerifiedMessage> invalidVerification;
+      try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+        invalidVerification =
+            verifier.verifyAsync(httpHeaders, publisher, executor).toCompletableFuture();
+        publisher.submit(ByteBuffer.wrap("{\"greetings\": ".getBytes(StandardCharsets.UTF_8)));
+        publisher.submit(ByteBuffer.wrap("\"Bye World\"}".getBytes(StandardCharsets.UTF_8)));
+      }
+      assertThatThrownBy(() -> invalidVerification.get(10, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(WebhookSignatureVerificationException.class);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Reject junk requests before any cryptography with stackless exceptions")
+  void test37() {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+
+    HttpHeaders staleHttpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215 - 3600),
+                "webhook-signature",
+                "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo="));
+    WebhookSignatureVerificationException staleException =
+        catchThrowableOfType(
+            WebhookSignatureVerificationException.class,
+            () -> verifier.verify(staleHttpHeaders, "{\"greetings\": \"Hello World\"}"));
+    assertThat(staleException.reason()).isEqualTo(VerificationFailureReason.TIMESTAMP_TOO_OLD);
+    assertThat(staleException.getStackTrace().length).isEqualTo(0);
+
+    // A HMAC-SHA256 signature is 32 bytes long, not 64
+    HttpHeaders wrongLengthHttpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwqJrIzdVqJgIQM/8LFZQVZzFQImTZiYENAe0dOxofOvCg=="));
+    WebhookSignatureVerificationException wrongLengthException =
+        catchThrowableOfType(
+            WebhookSignatureVerificationException.class,
+            () -> verifier.verify(wrongLengthHttpHeaders, "{\"greetings\": \"Hello World\"}"));
+    assertThat(wrongLengthException.reason())
+        .isEqualTo(VerificationFailureReason.INVALID_SIGNATURE);
+    assertThat(wrongLengthException.getStackTrace().length).isEqualTo(0);
+    assertThat(wrongLengthException.getMessage()).startsWith("No signature among");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Try to verify without throwing")
+  void test38(String verificationKey, String signature) {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature));
+
+    assertThat(verifier.tryVerify(httpHeaders, "{\"greetings\": \"Hello World\"}").isVerified())
+        .isTrue();
+
+    VerificationOutcome outcome =
+        verifier.tryVerify(httpHeaders, "{\"greetings\": \"Bye World\"}");
+    assertThat(outcome.isVerified()).isFalse();
+    WebhookSignatureVerificationException failure = outcome.failure().orElseThrow();
+    assertThat(failure.reason()).isEqualTo(VerificationFailureReason.INVALID_SIGNATURE);
+    assertThat(failure.attemptFailureReasons())
+        .containsExactly(VerificationFailureReason.INVALID_SIGNATURE);
+    assertThat(failure.getStackTrace().length).isEqualTo(0);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Throw lightweight exceptions")
+  void test39(String verificationKey, String signature) {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=")
+            .addSerializedVerificationKey(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .lightweightExceptions(true)
+            .build();
+    HttpHeaders httpHeaders =
+        createHttpHeaders(
+            Map.of(
+                "webhook-id",
+                "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+                "webhook-timestamp",
+                String.valueOf(1737987215),
+                "webhook-signature",
+                signature + " v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo="));
+
+    WebhookSignatureVerificationException exception =
+        catchThrowableOfType(
+            WebhookSignatureVerificationException.class,
+            () -> verifier.verify(httpHeaders, "{\"greetings\": \"Bye World\"}"));
+    assertThat(exception.reason()).isEqualTo(VerificationFailureReason.INVALID_SIGNATURE);
+    assertThat(exception.attemptFailureReasons())
+        .containsExactly(
+            VerificationFailureReason.INVALID_SIGNATURE,
+            VerificationFailureReason.INVALID_SIGNATURE);
+    assertThat(exception.getStackTrace().length).isEqualTo(0);
+    assertThat(exception.getSuppressed().length).isEqualTo(0);
+    assertThat(exception.getMessage()).startsWith("No signature among");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify headers read straight from the caller storage")
+  void test40(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+
+    verifier.verify(
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5", String.valueOf(1737987215), signature),
+        "{\"greetings\": \"Hello World\"}");
+
+    Map<String, String> headers =
+        Map.of(
+            "Webhook-Id",
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+            "Webhook-Timestamp",
+            String.valueOf(1737987215));
+    assertThatThrownBy(
+            () ->
+                verifier.verify(
+                    name ->
+                        headers.entrySet().stream()
+                            .filter(entry -> entry.getKey().equalsIgnoreCase(name))
+                            .map(Map.Entry::getValue)
+                            .findFirst()
+                            .orElse(null),
+                    "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class)
+        .hasMessageContaining("No value found for header <webhook-signature>");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Warm up without reporting the synthetic message")
+  void test41(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    List<VerificationFailureReason> rejections = new ArrayList<>();
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .verificationListener(
+                new VerificationListener() {
+                  @Override
+                  public void onRejected(VerificationFailureReason reason) {
+                    rejections.add(reason);
+                  }
+                })
+            .replayGuard(ReplayGuard.inMemory(100))
+            .warmUpOnBuild(true)
+            .build();
+    verifier.warmUp();
+
+    assertThat(rejections).isEmpty();
+    verifier.verify(
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5", String.valueOf(1737987215), signature),
+        "{\"greetings\": \"Hello World\"}");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify with every crypto backend")
+  void test42(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    // SunJCE implements HMAC, SunEC implements Ed25519
+    String providerName = verificationKey.startsWith("whsec_") ? "SunJCE" : "SunEC";
+    for (CryptoBackend cryptoBackend :
+        List.of(
+            CryptoBackend.jca(),
+            CryptoBackend.jca(Security.getProvider(providerName)),
+            CryptoBackend.messageDigest())) {
+      WebhookSignatureVerifier verifier =
+          WebhookSignatureVerifier.builder(verificationKey)
+              .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+              .cryptoBackend(cryptoBackend)
+              .build();
+      WebhookHeaders headers =
+          WebhookHeaders.of(
+              "7a2486b3-31cf-4bd3-a460-df8845d16cd5", String.valueOf(1737987215), signature);
+
+      verifier.verify(headers, "{\"greetings\": \"Hello World\"}");
+      assertThatThrownBy(() -> verifier.verify(headers, "{\"greetings\": \"Bye World\"}"))
+          .isInstanceOf(WebhookSignatureVerificationException.class);
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Verify a signature following signatures that are not canonical base64")
+  void test43(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(verificationKey)
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    String schemeId = signature.substring(0, signature.indexOf(','));
+    String value = signature.substring(schemeId.length() + 1);
+    // Same length as a valid value, but with an invalid character, then with a non canonical end
+    String invalidCharacter = schemeId + ",*" + value.substring(1);
+    String nonCanonicalEnd = schemeId + "," + value.substring(0, value.length() - 3) + "//=";
+
+    verifier.verify(
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+            String.valueOf(1737987215),
+            invalidCharacter + " " + nonCanonicalEnd + " " + signature),
+        "{\"greetings\": \"Hello World\"}");
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "'whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=','v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo='",
+    "'whpk_MCowBQYDK2VwAyEAkp3dScDPIzT1CwUFUMdzyPbWOAQaCF9z4ucuKuZD7Io=','v1a,XVbiOe+IzCKsXBuhb52iHLroqxFJofJNMQRL80I2kWO0+kXu2gcqgXAzontxDDgpMDw6SMh4sjzr+67EmUUzDg=='"
+  })
+  @DisplayName("Report the matching key of a verified message")
+  void test44(String verificationKey, String signature)
+      throws WebhookSignatureVerificationException {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder(
+                "whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=", "old")
+            .addSerializedVerificationKey(verificationKey, "new")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .build();
+    WebhookHeaders headers =
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5", String.valueOf(1737987215), signature);
+
+    VerifiedMessage verifiedMessage = verifier.verify(headers, "{\"greetings\": \"Hello World\"}");
+
+    assertThat(verifiedMessage.messageId()).isEqualTo("7a2486b3-31cf-4bd3-a460-df8845d16cd5");
+    assertThat(verifiedMessage.timestamp()).isEqualTo(1737987215L);
+    assertThat(verifiedMessage.signatureSchemeId())
+        .isEqualTo(signature.substring(0, signature.indexOf(',')));
+    assertThat(verifiedMessage.keyIndex()).isEqualTo(1);
+    assertThat(verifiedMessage.keyLabel()).contains("new");
+
+    verifier.addKey(verificationKey);
+    assertThat(
+            verifier
+                .tryVerify(headers, "{\"greetings\": \"Hello World\"}")
+                .verifiedMessage()
+                .flatMap(VerifiedMessage::keyLabel))
+        .contains("new");
+  }
+
+  @Test
+  @DisplayName("Skip the signature verification of redelivered messages only")
+  void test45() throws WebhookSignatureVerificationException {
+    AtomicInteger hmacComputations = new AtomicInteger();
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .cryptoBackend(new CountingCryptoBackend(hmacComputations))
+            .verificationCache(100)
+            .build();
+    WebhookHeaders headers =
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+            String.valueOf(1737987215),
+            "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo=");
+
+    verifier.verify(headers, "{\"greetings\": \"Hello World\"}");
+    verifier.verify(headers, "{\"greetings\": \"Hello World\"}");
+    assertThat(hmacComputations.get()).isEqualTo(1);
+
+    assertThatThrownBy(() -> verifier.verify(headers, "{\"greetings\": \"Bye World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+    assertThat(hmacComputations.get()).isEqualTo(2);
+
+    verifier.addKey("whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=");
+    verifier.retireKey("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=");
+    assertThatThrownBy(() -> verifier.verify(headers, "{\"greetings\": \"Hello World\"}"))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+  }
+
+  @Test
+  @DisplayName("Report a message the replay guard could not record")
+  void test46() {
+    WebhookSignatureVerifier verifier =
+        WebhookSignatureVerifier.builder("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .clock(Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault()))
+            .replayGuard((messageId, messageTimestamp) -> ReplayGuard.Result.REFUSED)
+            .build();
+    WebhookHeaders headers =
+        WebhookHeaders.of(
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+            String.valueOf(1737987215),
+            "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo=");
+
+    WebhookSignatureVerificationException exception =
+        catchThrowableOfType(
+            WebhookSignatureVerificationException.class,
+            () -> verifier.verify(headers, "{\"greetings\": \"Hello World\"}"));
+    assertThat(exception.reason()).isEqualTo(VerificationFailureReason.UNRECORDED_MESSAGE);
+  }
+
+  @Test
+  @DisplayName("Refuse to combine the verification cache with a replay guard")
+  void test47() {
+    WebhookSignatureVerifier.Builder builder =
+        WebhookSignatureVerifier.builder("whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=")
+            .replayGuard(ReplayGuard.inMemory(100))
+            .verificationCache(100);
+
+    assertThatThrownBy(builder::build).isInstanceOf(IllegalStateException.class);
+  }
+
   private HttpHeaders createHttpHeaders(Map<String, String> headers) {
     return HttpHeaders.of(
         headers.entrySet().stream()
@@ -509,4 +1432,49 @@ class VerifierTest {
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)),
         (s, s2) -> true);
   }
+
+  /** Counts the HMAC computations of the JCA backend. */
+  private record CountingCryptoBackend(AtomicInteger hmacComputations) implements CryptoBackend {
+
+    @Override
+    public HmacSha256 hmacSha256(byte[] secret) throws GeneralSecurityException {
+      return new CountingHmacSha256(CryptoBackend.jca().hmacSha256(secret), hmacComputations);
+    }
+
+    @Override
+    public Ed25519Verifier ed25519Verifier(byte[] x509EncodedPublicKey)
+        throws GeneralSecurityException {
+      return CryptoBackend.jca().ed25519Verifier(x509EncodedPublicKey);
+    }
+  }
+
+  private record CountingHmacSha256(CryptoBackend.HmacSha256 delegate, AtomicInteger computations)
+      implements CryptoBackend.HmacSha256 {
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+      delegate.update(bytes, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer bytes) {
+      delegate.update(bytes);
+    }
+
+    @Override
+    public byte[] doFinal() {
+      computations.incrementAndGet();
+      return delegate.doFinal();
+    }
+
+    @Override
+    public void reset() {
+      delegate.reset();
+    }
+
+    @Override
+    public CryptoBackend.HmacSha256 newEngine() throws GeneralSecurityException {
+      return new CountingHmacSha256(delegate.newEngine(), computations);
+    }
+  }
 }
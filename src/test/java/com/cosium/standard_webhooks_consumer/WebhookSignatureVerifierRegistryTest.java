@@ -0,0 +1,164 @@
+package com.cosium.standard_webhooks_consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.http.HttpHeaders;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Réda Housni Alaoui
+ */
+class WebhookSignatureVerifierRegistryTest {
+
+  private static final String VALID_KEY = "whsec_b6Ovv5eS7H5seJrGSStBYDivs8v2/KrFjfMaVZYsi7w=";
+  private static final String OTHER_KEY = "whsec_K5oZfzN95Z9UVu1EsfQmfVNQhnkZ2pj9o9NDN/H/pI4=";
+  private static final String PAYLOAD = "{\"greetings\": \"Hello World\"}";
+
+  @Test
+  @DisplayName("Build each tenant verifier once")
+  void test1() throws WebhookSignatureVerificationException {
+    AtomicInteger loadCount = new AtomicInteger();
+    WebhookSignatureVerifierRegistry registry =
+        WebhookSignatureVerifierRegistry.builder(
+                tenantId -> {
+                  loadCount.incrementAndGet();
+                  return "foo".equals(tenantId) ? List.of(OTHER_KEY, VALID_KEY) : List.of();
+                })
+            .verifierCustomizer(
+                verifierBuilder ->
+                    verifierBuilder.clock(
+                        Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault())))
+            .build();
+
+    registry.find("foo").orElseThrow().verify(createHttpHeaders(), PAYLOAD);
+    registry.find("foo").orElseThrow().verify(createHttpHeaders(), PAYLOAD);
+    assertThat(registry.find("bar")).isEmpty();
+    assertThat(registry.find("bar")).isEmpty();
+
+    assertThat(loadCount.get()).isEqualTo(2);
+    assertThat(registry.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Refresh the keys of a tenant")
+  void test2() throws WebhookSignatureVerificationException {
+    Map<String, List<String>> keysByTenant = new ConcurrentHashMap<>();
+    keysByTenant.put("foo", List.of(OTHER_KEY));
+    WebhookSignatureVerifierRegistry registry =
+        WebhookSignatureVerifierRegistry.builder(
+                tenantId -> keysByTenant.getOrDefault(tenantId, List.of()))
+            .verifierCustomizer(
+                verifierBuilder ->
+                    verifierBuilder.clock(
+                        Clock.fixed(Instant.ofEpochSecond(1737987215), ZoneId.systemDefault())))
+            .build();
+
+    WebhookSignatureVerifier staleVerifier = registry.find("foo").orElseThrow();
+    assertThatThrownBy(() -> staleVerifier.verify(createHttpHeaders(), PAYLOAD))
+        .isInstanceOf(WebhookSignatureVerificationException.class);
+
+    keysByTenant.put("foo", List.of(VALID_KEY));
+    registry.refresh("foo");
+    registry.find("foo").orElseThrow().verify(createHttpHeaders(), PAYLOAD);
+
+    keysByTenant.remove("foo");
+    registry.refresh("foo");
+    assertThat(registry.find("foo")).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Drop idle and excess verifiers")
+  void test3() {
+    MutableClock clock = new MutableClock(Instant.ofEpochSecond(1737987215));
+    WebhookSignatureVerifierRegistry registry =
+        WebhookSignatureVerifierRegistry.builder(tenantId -> List.of(VALID_KEY))
+            .maximumSize(10)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .clock(clock)
+            .build();
+
+    for (int i = 0; i < 20; i++) {
+      registry.find("tenant-" + i);
+      clock.advance(Duration.ofSeconds(1));
+    }
+    assertThat(registry.size()).isLessThan(11);
+
+    clock.advance(Duration.ofMinutes(10));
+    registry.cleanUp();
+    assertThat(registry.size()).isEqualTo(0);
+  }
+
+  @Test
+  @DisplayName("Ask the key source again about an unknown tenant once expired")
+  void test4() {
+    MutableClock clock = new MutableClock(Instant.ofEpochSecond(1737987215));
+    AtomicInteger loadCount = new AtomicInteger();
+    WebhookSignatureVerifierRegistry registry =
+        WebhookSignatureVerifierRegistry.builder(
+                tenantId -> {
+                  loadCount.incrementAndGet();
+                  return List.of();
+                })
+            .expireUnknownTenantAfter(Duration.ofSeconds(10))
+            .clock(clock)
+            .build();
+
+    assertThat(registry.find("foo")).isEmpty();
+    clock.advance(Duration.ofSeconds(9));
+    assertThat(registry.find("foo")).isEmpty();
+    assertThat(loadCount.get()).isEqualTo(1);
+
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(registry.find("foo")).isEmpty();
+    assertThat(loadCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Let the key source look up another tenant")
+  void test5() {
+    AtomicReference<WebhookSignatureVerifierRegistry> registryReference = new AtomicReference<>();
+    WebhookSignatureVerifierRegistry registry =
+        WebhookSignatureVerifierRegistry.builder(
+                tenantId -> {
+                  if ("foo".equals(tenantId)) {
+                    return registryReference.get().find("bar").isPresent()
+                        ? List.of(VALID_KEY)
+                        : List.of();
+                  }
+                  return List.of(OTHER_KEY);
+                })
+            .build();
+    registryReference.set(registry);
+
+    assertThat(registry.find("foo")).isPresent();
+    assertThat(registry.size()).isEqualTo(2);
+  }
+
+  private HttpHeaders createHttpHeaders() {
+    Map<String, String> headers =
+        Map.of(
+            "webhook-id",
+            "7a2486b3-31cf-4bd3-a460-df8845d16cd5",
+            "webhook-timestamp",
+            String.valueOf(1737987215),
+            "webhook-signature",
+            "v1,iayM3VaiYCEDP/CxWUFWcxUCJk2YmBDQHtHTsaHzrwo=");
+    return HttpHeaders.of(
+        headers.entrySet().stream()
+            .map(entry -> Map.entry(entry.getKey(), List.of(entry.getValue())))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)),
+        (s, s2) -> true);
+  }
+}